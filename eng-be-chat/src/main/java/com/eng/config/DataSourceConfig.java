@@ -0,0 +1,152 @@
+package com.eng.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Primary and replica Hikari pools of every shard behind one read/write routing data source. Shard 0 pools
+ * are beans, so Spring Boot publishes their hikaricp.* metrics tagged with the pool name; pools of the extra
+ * shards register the same metrics themselves.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardDataSourceProperties.class)
+public class DataSourceConfig {
+
+    @Value("${custom.datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${custom.datasource.replica.username}")
+    private String replicaUsername;
+
+    @Value("${custom.datasource.replica.password}")
+    private String replicaPassword;
+
+    @Value("${custom.datasource.replica.read-your-writes-ms:2000}")
+    private long readYourWritesMillis;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("chat-primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("custom.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        dataSource.setPoolName("chat-replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ShardDataSources shardDataSources(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                             @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                             ShardDataSourceProperties shardProperties,
+                                             DataSourceProperties properties,
+                                             MeterRegistry meterRegistry) {
+        List<DataSource> primaries = new ArrayList<>(List.of(primaryDataSource));
+        List<DataSource> replicas = new ArrayList<>(List.of(replicaDataSource));
+        List<HikariDataSource> ownedPools = new ArrayList<>();
+
+        for (ShardDataSourceProperties.Shard shard : shardProperties.getShards()) {
+            int number = primaries.size();
+            HikariDataSource primary = shardPool(properties, shard, shard.getUrl(), "chat-shard" + number + "-primary", meterRegistry);
+            ownedPools.add(primary);
+            primaries.add(primary);
+
+            if (StringUtils.hasText(shard.getReplicaUrl())) {
+                HikariDataSource replica = shardPool(properties, shard, shard.getReplicaUrl(), "chat-shard" + number + "-replica", meterRegistry);
+                replica.setReadOnly(true);
+                ownedPools.add(replica);
+                replicas.add(replica);
+            } else {
+                replicas.add(primary);
+            }
+        }
+        return new ShardDataSources(primaries, replicas, ownedPools);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shardDataSources,
+                                 RedisTemplate<String, String> redisTemplate,
+                                 MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shardDataSources.count(); shard++) {
+            targets.put(ReadWriteRoutingDataSource.key(shard, ReadWriteRoutingDataSource.PRIMARY), shardDataSources.primary(shard));
+            targets.put(ReadWriteRoutingDataSource.key(shard, ReadWriteRoutingDataSource.REPLICA), shardDataSources.replica(shard));
+        }
+
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(redisTemplate, meterRegistry,
+                Duration.ofMillis(readYourWritesMillis));
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(shardDataSources.primary(0));
+        routingDataSource.afterPropertiesSet();
+        // Defers the routing decision until the transaction's read-only flag and shard are known
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Migrates shard 0 through spring.flyway as before, then every extra shard with the same migrations.
+     */
+    @Bean
+    public FlywayMigrationStrategy shardMigrationStrategy(ShardDataSources shardDataSources) {
+        return flyway -> {
+            flyway.migrate();
+            for (int shard = 1; shard < shardDataSources.count(); shard++) {
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(shardDataSources.primary(shard))
+                        .schemas()
+                        .defaultSchema(null)
+                        .load()
+                        .migrate();
+            }
+        };
+    }
+
+    private HikariDataSource shardPool(DataSourceProperties properties, ShardDataSourceProperties.Shard shard,
+                                       String url, String poolName, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(shard.getUsername())
+                .password(shard.getPassword())
+                .build();
+        dataSource.setPoolName(poolName);
+        dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+        dataSource.setMetricRegistry(meterRegistry);
+        return dataSource;
+    }
+}
@@ -0,0 +1,35 @@
+package com.eng.config;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard whose pools serve the next physical connection taken on the current thread; shard 0 when none is set.
+ * <p>
+ * A transaction keeps the connection it took first, so the shard has to be chosen before the transaction
+ * runs its first statement. Work on another shard from inside a transaction runs on another thread.
+ */
+@UtilityClass
+public class ShardContext {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    public int current() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : 0;
+    }
+
+    public <T> T call(int shard, Supplier<T> work) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
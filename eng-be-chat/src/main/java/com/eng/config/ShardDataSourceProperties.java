@@ -0,0 +1,34 @@
+package com.eng.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Message store shards beyond shard 0, which is spring.datasource with custom.datasource.replica.
+ */
+@Data
+@ConfigurationProperties("custom.datasource")
+public class ShardDataSourceProperties {
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * Replica of this shard; read-only transactions use the primary when it is not set.
+         */
+        private String replicaUrl;
+
+        private int maximumPoolSize = 5;
+    }
+}
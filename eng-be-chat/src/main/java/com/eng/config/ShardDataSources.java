@@ -0,0 +1,42 @@
+package com.eng.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Physical pools of every shard, indexed by shard number. Connections taken from a primary here never join
+ * the current JPA transaction, which is what the shard directory, the message locator and the rebalancer need.
+ */
+@RequiredArgsConstructor
+public class ShardDataSources implements DisposableBean {
+
+    private final List<DataSource> primaries;
+
+    private final List<DataSource> replicas;
+
+    /**
+     * Pools of the extra shards; shard 0 pools are beans and closed by the container.
+     */
+    private final List<HikariDataSource> ownedPools;
+
+    public int count() {
+        return primaries.size();
+    }
+
+    public DataSource primary(int shard) {
+        return primaries.get(shard);
+    }
+
+    public DataSource replica(int shard) {
+        return replicas.get(shard);
+    }
+
+    @Override
+    public void destroy() {
+        ownedPools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,5 @@
+package com.eng.constants;
+
+public enum AttachmentStatus {
+    PENDING, READY, FAILED
+}
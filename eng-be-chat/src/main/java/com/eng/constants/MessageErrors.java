@@ -15,6 +15,26 @@ public enum MessageErrors {
 
     MESSAGE_NOT_EXISTS,
 
+    MESSAGE_ARCHIVED,
+
+    MESSAGE_SEND_IN_PROGRESS,
+
+    MESSAGE_CURSOR_INVALID,
+
+    MESSAGE_ACK_INVALID,
+
+    SYNC_TOKEN_INVALID,
+
+    MESSAGE_SEARCH_INVALID,
+
+    MESSAGE_EXPORT_BUSY,
+
+    CONVERSATION_MOVING,
+
+    SHARD_INVALID,
+
+    SHARD_REBALANCE_RUNNING,
+
     FRIEND_EXISTS,
 
     FRIEND_NOT_FOUND,
@@ -1,5 +1,9 @@
 package com.eng.constants;
 
 public enum MessageType {
-    TEXT, IMAGE, VIDEO, FILE, GIF, AUDIO
-}
\ No newline at end of file
+    TEXT, IMAGE, VIDEO, FILE, GIF, AUDIO;
+
+    public boolean isAttachment() {
+        return this == IMAGE || this == VIDEO || this == FILE || this == AUDIO;
+    }
+}
@@ -0,0 +1,22 @@
+package com.eng.constants;
+
+/**
+ * Storage model used for delivered/read receipts.
+ * <p>
+ * ROWS keeps one message_status row per participant and message.
+ * WATERMARK only moves the "delivered up to" / "read up to" pointers of conversation_participant,
+ * so a receipt costs one write whatever the group size.
+ * DUAL writes both models and keeps reading the rows; it is the step used to cut over from ROWS
+ * to WATERMARK without downtime.
+ */
+public enum ReceiptMode {
+    ROWS, DUAL, WATERMARK;
+
+    public boolean writesRows() {
+        return this != WATERMARK;
+    }
+
+    public boolean writesWatermark() {
+        return this != ROWS;
+    }
+}
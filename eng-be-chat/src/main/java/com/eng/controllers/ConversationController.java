@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.eng.constants.PathApi;
 import com.eng.models.request.GroupConversationRequest;
 import com.eng.models.response.ConversationResponse;
+import com.eng.models.response.InboxResponse;
 import com.eng.models.response.PageResponse;
 import com.eng.models.response.UserRelationshipResponse;
 import com.eng.service.ConversationService;
@@ -62,6 +63,11 @@ public class ConversationController {
         return ResponseEntity.ok(conversationService.createPrivateConversation(userId));
     }
 
+    @GetMapping(PathApi.CONVERSATION_INBOX)
+    public ResponseEntity<InboxResponse> getInbox() {
+        return ResponseEntity.ok(conversationService.getInbox());
+    }
+
     @PostMapping(PathApi.CONVERSATION_GROUP)
     public ResponseEntity<ConversationResponse> createGroupConversation(
             @Valid @RequestBody GroupConversationRequest request) {
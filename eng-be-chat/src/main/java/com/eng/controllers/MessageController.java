@@ -1,13 +1,23 @@
 package com.eng.controllers;
 
 import static com.eng.constants.PathApi.MESSAGE;
+import static com.eng.constants.PathApi.MESSAGE_ATTACHMENT;
 import static com.eng.constants.PathApi.MESSAGE_DELIVERED;
+import static com.eng.constants.PathApi.MESSAGE_EXPORT;
+import static com.eng.constants.PathApi.MESSAGE_HISTORY;
 import static com.eng.constants.PathApi.MESSAGE_REACTION;
 import static com.eng.constants.PathApi.MESSAGE_READ;
+import static com.eng.constants.PathApi.MESSAGE_READ_UP_TO;
+import static com.eng.constants.PathApi.MESSAGE_RECEIPTS;
+import static com.eng.constants.PathApi.MESSAGE_SEARCH;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,10 +29,17 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.eng.constants.ExportFormat;
 import com.eng.models.request.MessageRequest;
+import com.eng.models.response.MessageReceiptResponse;
 import com.eng.models.response.MessageResponse;
+import com.eng.models.response.MessageSearchResponse;
 import com.eng.models.response.PageResponse;
+import com.eng.models.response.SliceResponse;
+import com.eng.service.MessageExportService;
+import com.eng.service.MessageSearchService;
 import com.eng.service.MessageService;
 
 import jakarta.validation.Valid;
@@ -34,6 +51,8 @@ import lombok.RequiredArgsConstructor;
 public class MessageController {
 
     private final MessageService messageService;
+    private final MessageSearchService messageSearchService;
+    private final MessageExportService messageExportService;
 
     @GetMapping
     public ResponseEntity<PageResponse<MessageResponse>> getMessages(
@@ -43,6 +62,36 @@ public class MessageController {
         return ResponseEntity.ok(messageService.getMessages(conversationId, PageRequest.of(page, size)));
     }
 
+    @GetMapping(MESSAGE_HISTORY)
+    public ResponseEntity<SliceResponse<MessageResponse>> getMessageHistory(
+            @RequestParam UUID conversationId,
+            @RequestParam(required = false) UUID before,
+            @RequestParam(required = false) UUID after,
+            @RequestParam Integer size) {
+        return ResponseEntity.ok(messageService.getMessageHistory(conversationId, before, after, size));
+    }
+
+    @GetMapping(MESSAGE_SEARCH)
+    public ResponseEntity<List<MessageSearchResponse>> searchMessages(
+            @RequestParam String query,
+            @RequestParam(required = false) UUID conversationId,
+            @RequestParam Integer size) {
+        return ResponseEntity.ok(messageSearchService.search(query, conversationId, size));
+    }
+
+    @GetMapping(MESSAGE_EXPORT)
+    public ResponseEntity<StreamingResponseBody> exportMessages(
+            @RequestParam UUID conversationId,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("conversation-" + conversationId + "." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(messageExportService.exportMessages(conversationId, format));
+    }
+
     @PostMapping
     public ResponseEntity<MessageResponse> sendMessage(
             @Valid @RequestBody MessageRequest request,
@@ -50,6 +99,13 @@ public class MessageController {
         return ResponseEntity.ok(messageService.sendMessage(request, file));
     }
 
+    @PostMapping(value = MESSAGE_ATTACHMENT, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<MessageResponse> sendAttachment(
+            @Valid @RequestPart("message") MessageRequest request,
+            @RequestPart("file") MultipartFile file) {
+        return ResponseEntity.ok(messageService.sendAttachment(request, file));
+    }
+
     @PutMapping
     public ResponseEntity<MessageResponse> editMessage(
             @RequestParam UUID conversationId,
@@ -79,6 +135,14 @@ public class MessageController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping(MESSAGE_READ_UP_TO)
+    public ResponseEntity<Void> markConversationAsRead(
+            @RequestParam UUID conversationId,
+            @RequestParam UUID messageId) {
+        messageService.markConversationAsRead(conversationId, messageId);
+        return ResponseEntity.ok().build();
+    }
+
     @PostMapping(MESSAGE_REACTION)
     public ResponseEntity<Void> addReaction(
             @RequestParam UUID messageId,
@@ -86,4 +150,10 @@ public class MessageController {
         messageService.addReaction(messageId, reaction);
         return ResponseEntity.ok().build();
     }
-} 
\ No newline at end of file
+
+    @GetMapping(MESSAGE_RECEIPTS)
+    public ResponseEntity<MessageReceiptResponse> getMessageReceipts(
+            @RequestParam UUID messageId) {
+        return ResponseEntity.ok(messageService.getMessageReceipts(messageId));
+    }
+}
@@ -0,0 +1,43 @@
+package com.eng.controllers;
+
+import static com.eng.constants.PathApi.SHARD;
+import static com.eng.constants.PathApi.SHARD_MOVE;
+import static com.eng.constants.PathApi.SHARD_REBALANCE;
+
+import java.util.UUID;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.eng.models.response.ShardMoveResponse;
+import com.eng.models.response.ShardRebalanceResponse;
+import com.eng.service.ShardRebalanceService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping(SHARD)
+@RequiredArgsConstructor
+public class ShardController {
+
+    private final ShardRebalanceService shardRebalanceService;
+
+    @PostMapping(SHARD_MOVE)
+    public ResponseEntity<ShardMoveResponse> move(@RequestParam UUID conversationId, @RequestParam Integer shard) {
+        return ResponseEntity.ok(shardRebalanceService.move(conversationId, shard));
+    }
+
+    @PostMapping(SHARD_REBALANCE)
+    public ResponseEntity<ShardRebalanceResponse> rebalance(@RequestParam(defaultValue = "20") Integer limit) {
+        return ResponseEntity.accepted().body(shardRebalanceService.rebalance(limit));
+    }
+
+    @GetMapping(SHARD_REBALANCE)
+    public ResponseEntity<ShardRebalanceResponse> getRebalance() {
+        return ResponseEntity.ok(shardRebalanceService.getRebalance());
+    }
+}
@@ -0,0 +1,27 @@
+package com.eng.controllers;
+
+import static com.eng.constants.PathApi.SYNC;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.eng.models.response.SyncResponse;
+import com.eng.service.SyncService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping(SYNC)
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final SyncService syncService;
+
+    @GetMapping
+    public ResponseEntity<SyncResponse> sync(@RequestParam(required = false) String token) {
+        return ResponseEntity.ok(syncService.sync(token));
+    }
+}
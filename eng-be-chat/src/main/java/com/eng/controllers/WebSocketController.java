@@ -1,19 +1,27 @@
 package com.eng.controllers;
 
 import static com.eng.constants.PathApi.CONVERSATION;
+import static com.eng.constants.PathApi.CONVERSATION_SOCKET_DELIVERED;
+import static com.eng.constants.PathApi.CONVERSATION_SOCKET_READ;
 import static com.eng.constants.PathApi.CONVERSATION_SOCKET_STATUS_OFFLINE;
 import static com.eng.constants.PathApi.CONVERSATION_SOCKET_STATUS_ONLINE;
 import static com.eng.constants.PathApi.CONVERSATION_SOCKET_TYPING;
 
+import java.security.Principal;
 import java.util.UUID;
 
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import com.eng.constants.MessageStatusType;
+import com.eng.models.request.MessageAckRequest;
 import com.eng.models.response.MessageTypingResponse;
+import com.eng.service.MessageService;
 import com.eng.service.WebSocketService;
+import com.eng.utils.SecurityUtil;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +31,7 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class WebSocketController {
     private final WebSocketService webSocketService;
+    private final MessageService messageService;
 
     @MessageMapping(CONVERSATION + CONVERSATION_SOCKET_TYPING)
     public void handleTyping(@DestinationVariable UUID conversationId, @RequestBody MessageTypingResponse messageTypingResponse) {
@@ -41,4 +50,14 @@ public class WebSocketController {
         log.info("User {} is status offline", userId);
         webSocketService.notifyUserOffline(userId);
     }
-} 
\ No newline at end of file
+
+    @MessageMapping(CONVERSATION + CONVERSATION_SOCKET_DELIVERED)
+    public void handleDelivered(@DestinationVariable UUID conversationId, @Payload MessageAckRequest request, Principal principal) {
+        messageService.acknowledgeMessages(conversationId, SecurityUtil.getIDUser(principal), MessageStatusType.DELIVERED, request);
+    }
+
+    @MessageMapping(CONVERSATION + CONVERSATION_SOCKET_READ)
+    public void handleRead(@DestinationVariable UUID conversationId, @Payload MessageAckRequest request, Principal principal) {
+        messageService.acknowledgeMessages(conversationId, SecurityUtil.getIDUser(principal), MessageStatusType.READ, request);
+    }
+}
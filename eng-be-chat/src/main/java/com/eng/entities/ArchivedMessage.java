@@ -0,0 +1,82 @@
+package com.eng.entities;
+
+import com.eng.constants.AttachmentStatus;
+import com.eng.constants.MessageType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A message moved out of the hot message table by the archiver. Rows are written with INSERT ... SELECT
+ * and only read afterwards, so the entity is immutable and keeps the conversation as a plain id.
+ */
+@Entity
+@Immutable
+@Table(name = "message_archive")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ArchivedMessage extends CommonBaseEntities {
+
+    @Id
+    @Column(columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID id;
+
+    @Column(name = "conversation_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID conversationId;
+
+    @Column(columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID senderId;
+
+    private String content;
+
+    @Enumerated(EnumType.STRING)
+    private MessageType type;
+
+    @Column(name = "reply_to", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID replyTo;
+
+    @Column(name = "client_message_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID clientMessageId;
+
+    @Column(name = "attachment_key")
+    private String attachmentKey;
+
+    @Column(name = "attachment_name")
+    private String attachmentName;
+
+    @Column(name = "attachment_content_type")
+    private String attachmentContentType;
+
+    @Column(name = "attachment_size")
+    private Long attachmentSize;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "attachment_status")
+    private AttachmentStatus attachmentStatus;
+
+    @Column(name = "is_deleted")
+    private boolean deleted;
+
+    @Column(name = "is_edited")
+    private boolean edited;
+
+    @Column(name = "edited_at")
+    private Date editedAt;
+
+    private Long version;
+
+    @Column(name = "archived_at")
+    private Date archivedAt;
+}
@@ -0,0 +1,35 @@
+package com.eng.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.UUID;
+
+/**
+ * Reaction counts of an archived message, frozen when the message was archived.
+ */
+@Entity
+@Immutable
+@Table(name = "message_reaction_archive")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@IdClass(MessageReactionId.class)
+public class ArchivedMessageReaction {
+
+    @Id
+    @Column(name = "message_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID messageId;
+
+    @Id
+    @Column(name = "reaction")
+    private String reaction;
+
+    @Column(name = "reaction_count")
+    private int count;
+}
@@ -0,0 +1,51 @@
+package com.eng.entities;
+
+import com.eng.constants.MessageStatusType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Receipt and reaction of one user on an archived message, moved out of message_status together with the message.
+ */
+@Entity
+@Immutable
+@Table(name = "message_status_archive")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@IdClass(ArchivedMessageStatusId.class)
+public class ArchivedMessageStatus {
+
+    @Id
+    @Column(name = "message_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID messageId;
+
+    @Id
+    @Column(name = "user_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private MessageStatusType status;
+
+    @Column(name = "read_at")
+    private Date readAt;
+
+    @Column(name = "delivered_at")
+    private Date deliveredAt;
+
+    @Column(name = "reaction")
+    private String reaction;
+
+    @Column(name = "updated_at")
+    private Date updatedAt;
+}
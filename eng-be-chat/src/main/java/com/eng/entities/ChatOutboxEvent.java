@@ -0,0 +1,39 @@
+package com.eng.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * Chat event written in the transaction that produced it and relayed to the broker after commit.
+ */
+@Entity
+@Table(name = "chat_outbox")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class ChatOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String destination;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    /**
+     * Instance that wrote the event; its STOMP sessions are the ones subscribed through it.
+     */
+    @Column(name = "owner")
+    private String owner;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private Date createdAt;
+}
@@ -0,0 +1,26 @@
+package com.eng.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * Liveness of one outbox relay instance, renewed while the instance runs. Kept on shard 0.
+ */
+@Entity
+@Table(name = "chat_outbox_lease")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class ChatOutboxLease {
+
+    @Id
+    private String owner;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "renewed_at", nullable = false)
+    private Date renewedAt;
+}
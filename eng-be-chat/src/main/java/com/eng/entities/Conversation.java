@@ -19,9 +19,9 @@ import java.util.UUID;
 public class Conversation extends CommonBaseEntities{
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    @Column(columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @TimeOrderedUuid
+    @Column(columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID id;
 
     @Column(name = "is_group")
@@ -32,15 +32,15 @@ public class Conversation extends CommonBaseEntities{
     @OneToMany(mappedBy = "conversation", cascade = CascadeType.ALL)
     private List<ConversationParticipant> participants;
 
-    @Column(name = "last_message_id", columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "last_message_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID lastMessageId;
 
     @Column(name = "last_message_at")
     private Instant lastMessageAt;
 
-    @Column(name = "created_by", columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "created_by", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID createdBy;
 }
 
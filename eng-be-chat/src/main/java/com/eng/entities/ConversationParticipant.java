@@ -21,13 +21,13 @@ import java.util.UUID;
 public class ConversationParticipant {
 
     @Id
-    @Column(name = "conversation_id", columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "conversation_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID conversationId;
 
     @Id
-    @Column(name = "user_id", columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "user_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID userId;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -38,6 +38,29 @@ public class ConversationParticipant {
     @Column(name = "joined_at")
     private Date joinedAt;
 
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "delivered_up_to")
+    private Date deliveredUpTo;
+
+    /**
+     * Message the delivered pointer was moved to, orders messages created in the same millisecond.
+     */
+    @Column(name = "delivered_up_to_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID deliveredUpToId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "read_up_to")
+    private Date readUpTo;
+
+    @Column(name = "read_up_to_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID readUpToId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private Date updatedAt;
+
     /**
      * JPA lifecycle callback that is triggered before an entity is persisted.
      * Sets both createAt and updatedAt timestamps to the current time.
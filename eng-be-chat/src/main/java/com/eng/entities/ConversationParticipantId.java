@@ -16,11 +16,11 @@ import java.util.UUID;
 @AllArgsConstructor
 @Embeddable
 public class ConversationParticipantId implements Serializable {
-    @Column(name = "conversation_id", columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "conversation_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID conversationId;
 
-    @Column(name = "user_id", columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "user_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID userId;
 }
\ No newline at end of file
@@ -17,17 +17,17 @@ import java.util.UUID;
 @Builder
 public class FriendRequest extends CommonBaseEntities {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    @Column(columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @TimeOrderedUuid
+    @Column(columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID id;
 
-    @Column(name = "sender_id", nullable = false, columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "sender_id", nullable = false, columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID senderId;
 
-    @Column(name = "receiver_id", nullable = false, columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "receiver_id", nullable = false, columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID receiverId;
 
     @Enumerated(EnumType.STRING)
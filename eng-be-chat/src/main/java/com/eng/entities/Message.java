@@ -1,5 +1,6 @@
 package com.eng.entities;
 
+import com.eng.constants.AttachmentStatus;
 import com.eng.constants.MessageType;
 import jakarta.persistence.*;
 import lombok.*;
@@ -19,17 +20,17 @@ import java.util.UUID;
 public class Message extends CommonBaseEntities {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    @Column(columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @TimeOrderedUuid
+    @Column(columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID id;
 
     @ManyToOne
     @JoinColumn(name = "conversation_id")
     private Conversation conversation;
 
-    @Column(columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID senderId;
 
     private String content;
@@ -37,10 +38,30 @@ public class Message extends CommonBaseEntities {
     @Enumerated(EnumType.STRING)
     private MessageType type;
 
-    @Column(name = "reply_to", columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "reply_to", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID replyTo;
 
+    @Column(name = "client_message_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID clientMessageId;
+
+    @Column(name = "attachment_key")
+    private String attachmentKey;
+
+    @Column(name = "attachment_name")
+    private String attachmentName;
+
+    @Column(name = "attachment_content_type")
+    private String attachmentContentType;
+
+    @Column(name = "attachment_size")
+    private Long attachmentSize;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "attachment_status")
+    private AttachmentStatus attachmentStatus;
+
     @Column(name = "is_deleted")
     private boolean deleted = false;
 
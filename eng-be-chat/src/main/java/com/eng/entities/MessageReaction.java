@@ -0,0 +1,34 @@
+package com.eng.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.UUID;
+
+/**
+ * How many participants reacted to a message with one reaction, maintained when a reaction changes.
+ */
+@Entity
+@Table(name = "message_reaction")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@IdClass(MessageReactionId.class)
+public class MessageReaction {
+
+    @Id
+    @Column(name = "message_id", columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID messageId;
+
+    @Id
+    @Column(name = "reaction")
+    private String reaction;
+
+    @Column(name = "reaction_count")
+    private int count;
+}
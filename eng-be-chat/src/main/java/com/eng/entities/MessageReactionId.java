@@ -0,0 +1,18 @@
+package com.eng.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageReactionId implements Serializable {
+
+    private UUID messageId;
+
+    private String reaction;
+}
@@ -25,8 +25,8 @@ public class MessageStatus {
     private Message message;
 
     @Id
-    @Column(columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID userId;
 
     @Enumerated(EnumType.STRING)
@@ -42,5 +42,8 @@ public class MessageStatus {
     @Column(name = "reaction")
     private String reaction;
 
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private Date updatedAt;
+
 }
 
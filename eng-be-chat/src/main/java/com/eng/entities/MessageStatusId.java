@@ -21,7 +21,7 @@ public class MessageStatusId implements Serializable {
     @JoinColumn(name = "message_id")
     private Message message;
 
-    @Column(columnDefinition = "char(36)")
-    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(columnDefinition = "binary(16)")
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID userId;
 } 
\ No newline at end of file
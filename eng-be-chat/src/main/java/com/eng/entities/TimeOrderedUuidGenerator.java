@@ -0,0 +1,65 @@
+package com.eng.entities;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+
+/**
+ * Generates UUIDv7 ids: a 48-bit unix millisecond timestamp, a 12-bit sequence and 62 random bits.
+ * <p>
+ * Ids created later sort after earlier ones, both as UUIDs and as their binary(16) bytes, so inserts append
+ * to the end of the InnoDB clustered index instead of splitting random pages. Within one millisecond the
+ * sequence keeps ids of this instance strictly increasing; when it overflows the timestamp is borrowed from
+ * the next millisecond. Existing random (v4) ids stay valid and are not rewritten, they simply sort among
+ * the new ones by their random prefix.
+ */
+public class TimeOrderedUuidGenerator implements BeforeExecutionGenerator {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int SEQUENCE_MASK = 0xFFF;
+
+    private static long lastTimestamp;
+    private static int sequence;
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+    public static UUID next() {
+        long timestamp;
+        int counter;
+        synchronized (TimeOrderedUuidGenerator.class) {
+            long now = System.currentTimeMillis();
+            if (now > lastTimestamp) {
+                lastTimestamp = now;
+                sequence = RANDOM.nextInt(SEQUENCE_MASK / 2);
+            } else if (++sequence > SEQUENCE_MASK) {
+                lastTimestamp++;
+                sequence = 0;
+            }
+            timestamp = lastTimestamp;
+            counter = sequence;
+        }
+
+        long mostSigBits = (timestamp << 16) | 0x7000L | counter;
+        long leastSigBits = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Sorts before every id generated in or after the given unix millisecond and after those generated before it.
+     */
+    public static UUID firstOf(long timestamp) {
+        return new UUID(timestamp << 16, 0L);
+    }
+}
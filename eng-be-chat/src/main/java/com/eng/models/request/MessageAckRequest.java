@@ -0,0 +1,15 @@
+package com.eng.models.request;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class MessageAckRequest {
+
+    /**
+     * Messages of the destination conversation acknowledged by this frame.
+     */
+    private List<UUID> messageIds;
+}
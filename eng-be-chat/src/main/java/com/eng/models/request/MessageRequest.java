@@ -19,4 +19,9 @@ public class MessageRequest {
     private MessageType type;
 
     private UUID replyTo;
+
+    /**
+     * Optional id generated by the client; a send repeated with the same id returns the stored message.
+     */
+    private UUID clientMessageId;
 } 
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.eng.models.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.UUID;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class InboxResponse {
+
+    /**
+     * Unread messages per conversation; conversations without unread messages are left out.
+     */
+    private Map<UUID, Long> unreadCounts;
+
+    private long totalUnread;
+
+}
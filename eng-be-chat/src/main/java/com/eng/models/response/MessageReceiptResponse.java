@@ -0,0 +1,23 @@
+package com.eng.models.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class MessageReceiptResponse {
+
+    private UUID messageId;
+
+    private List<UUID> deliveredTo;
+
+    private List<UUID> readBy;
+
+}
@@ -1,17 +1,25 @@
 package com.eng.models.response;
 
+import com.eng.constants.AttachmentStatus;
 import com.eng.constants.MessageType;
 import com.eng.entities.Conversation;
 import com.eng.entities.Message;
 import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
 public class MessageResponse {
     private UUID id;
 
@@ -25,6 +33,18 @@ public class MessageResponse {
 
     private UUID replyTo;
 
+    private UUID clientMessageId;
+
+    private String attachmentKey;
+
+    private String attachmentName;
+
+    private String attachmentContentType;
+
+    private Long attachmentSize;
+
+    private AttachmentStatus attachmentStatus;
+
     private boolean deleted;
 
     private boolean edited;
@@ -35,4 +55,23 @@ public class MessageResponse {
 
     private Date createdAt;
 
+    private Date updatedAt;
+
+    /**
+     * Set on history pages only, most used reaction first.
+     */
+    private List<ReactionSummaryResponse> reactions;
+
+    /**
+     * Projection of a message row, used by the history queries of message and message_archive.
+     */
+    public MessageResponse(UUID id, UUID conversationId, UUID senderId, String content, MessageType type, UUID replyTo,
+                           UUID clientMessageId, String attachmentKey, String attachmentName, String attachmentContentType,
+                           Long attachmentSize, AttachmentStatus attachmentStatus, boolean deleted, boolean edited,
+                           Date editedAt, Long version, Date createdAt, Date updatedAt) {
+        this(id, conversationId, senderId, content, type, replyTo, clientMessageId, attachmentKey, attachmentName,
+                attachmentContentType, attachmentSize, attachmentStatus, deleted, edited, editedAt, version, createdAt,
+                updatedAt, null);
+    }
+
 }
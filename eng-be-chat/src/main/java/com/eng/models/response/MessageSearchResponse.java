@@ -0,0 +1,27 @@
+package com.eng.models.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchResponse {
+
+    private UUID messageId;
+
+    private UUID conversationId;
+
+    private UUID senderId;
+
+    private String content;
+
+    private Date createdAt;
+
+    private float score;
+
+}
@@ -0,0 +1,29 @@
+package com.eng.models.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class MessageStatusBatchResponse {
+
+    public static final String TYPE = "STATUS_BATCH";
+
+    /**
+     * Lets clients tell batch frames apart on the conversation status topic.
+     */
+    @Builder.Default
+    private String type = TYPE;
+
+    private UUID conversationId;
+
+    private List<MessageStatusEventResponse> events;
+
+}
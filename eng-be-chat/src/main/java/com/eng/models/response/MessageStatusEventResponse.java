@@ -0,0 +1,42 @@
+package com.eng.models.response;
+
+import com.eng.constants.MessageStatusType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MessageStatusEventResponse {
+
+    private UUID messageId;
+
+    private UUID userId;
+
+    private MessageStatusType status;
+
+    private String reaction;
+
+    private Date updatedAt;
+
+    /**
+     * Set on read events covering every message of the conversation up to this time.
+     */
+    private Date readUpTo;
+
+    /**
+     * Projection of a single status row, used by the sync queries.
+     */
+    public MessageStatusEventResponse(UUID messageId, UUID userId, MessageStatusType status, String reaction, Date updatedAt) {
+        this(messageId, userId, status, reaction, updatedAt, null);
+    }
+
+}
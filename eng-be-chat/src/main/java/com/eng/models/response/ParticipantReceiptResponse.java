@@ -0,0 +1,32 @@
+package com.eng.models.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticipantReceiptResponse {
+
+    private UUID conversationId;
+
+    private UUID userId;
+
+    private Date deliveredUpTo;
+
+    /**
+     * Message the pointer covers up to: every message at or before it in history order, (createdAt, id).
+     */
+    private UUID deliveredUpToId;
+
+    private Date readUpTo;
+
+    private UUID readUpToId;
+
+    private Date updatedAt;
+
+}
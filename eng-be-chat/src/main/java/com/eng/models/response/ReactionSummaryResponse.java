@@ -0,0 +1,23 @@
+package com.eng.models.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class ReactionSummaryResponse {
+
+    private String reaction;
+
+    private long count;
+
+    /**
+     * Whether the current user reacted with this reaction.
+     */
+    private boolean reacted;
+
+}
@@ -0,0 +1,24 @@
+package com.eng.models.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class ShardMoveResponse {
+
+    private UUID conversationId;
+
+    private int fromShard;
+
+    private int toShard;
+
+    private long copiedRows;
+
+}
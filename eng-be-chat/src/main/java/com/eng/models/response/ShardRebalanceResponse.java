@@ -0,0 +1,30 @@
+package com.eng.models.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+@Data
+public class ShardRebalanceResponse {
+
+    private boolean running;
+
+    private int limit;
+
+    private int moved;
+
+    private int failed;
+
+    private long copiedRows;
+
+    private Date startedAt;
+
+    private Date finishedAt;
+
+}
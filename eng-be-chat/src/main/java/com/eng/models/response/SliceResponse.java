@@ -0,0 +1,16 @@
+package com.eng.models.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SliceResponse<T> {
+
+    private int size;
+
+    private boolean hasNext;
+
+    private List<T> data;
+
+}
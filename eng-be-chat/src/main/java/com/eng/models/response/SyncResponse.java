@@ -0,0 +1,22 @@
+package com.eng.models.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SyncResponse {
+
+    private String nextToken;
+
+    private boolean hasMore;
+
+    private List<MessageResponse> messages;
+
+    private List<MessageStatusEventResponse> statuses;
+
+    private List<ParticipantReceiptResponse> receipts;
+
+    private List<ConversationResponse> conversations;
+
+}
@@ -0,0 +1,63 @@
+package com.eng.repositories;
+
+import com.eng.entities.ArchivedMessage;
+import com.eng.models.response.MessageResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedMessageRepository extends JpaRepository<ArchivedMessage, UUID> {
+
+    /**
+     * Same projection as {@link MessageRepository#MESSAGE_RESPONSE}, so archived and hot rows can be merged
+     * into one page.
+     */
+    String ARCHIVED_MESSAGE_RESPONSE = "SELECT new com.eng.models.response.MessageResponse(a.id, a.conversationId, a.senderId, " +
+            "a.content, a.type, a.replyTo, a.clientMessageId, a.attachmentKey, a.attachmentName, a.attachmentContentType, " +
+            "a.attachmentSize, a.attachmentStatus, a.deleted, a.edited, a.editedAt, a.version, a.createdAt, a.updatedAt) ";
+
+    @Query(ARCHIVED_MESSAGE_RESPONSE + "FROM ArchivedMessage a WHERE a.conversationId = :conversationId AND a.deleted = false " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    Slice<MessageResponse> findLatest(@Param("conversationId") UUID conversationId, Pageable pageable);
+
+    @Query(ARCHIVED_MESSAGE_RESPONSE + "FROM ArchivedMessage a WHERE a.conversationId = :conversationId AND a.deleted = false " +
+            "AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :messageId)) " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    Slice<MessageResponse> findBefore(@Param("conversationId") UUID conversationId,
+                                      @Param("createdAt") Date createdAt,
+                                      @Param("messageId") UUID messageId,
+                                      Pageable pageable);
+
+    @Query(ARCHIVED_MESSAGE_RESPONSE + "FROM ArchivedMessage a WHERE a.conversationId = :conversationId AND a.deleted = false " +
+            "AND (a.createdAt > :createdAt OR (a.createdAt = :createdAt AND a.id > :messageId)) " +
+            "ORDER BY a.createdAt ASC, a.id ASC")
+    Slice<MessageResponse> findAfter(@Param("conversationId") UUID conversationId,
+                                     @Param("createdAt") Date createdAt,
+                                     @Param("messageId") UUID messageId,
+                                     Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(ARCHIVED_MESSAGE_RESPONSE + "FROM ArchivedMessage a WHERE a.conversationId = :conversationId AND a.deleted = false " +
+            "ORDER BY a.createdAt ASC, a.id ASC")
+    Stream<MessageResponse> streamByConversationId(@Param("conversationId") UUID conversationId);
+
+    @Query("SELECT a.createdAt FROM ArchivedMessage a WHERE a.id = :messageId AND a.conversationId = :conversationId")
+    Optional<Date> findCreatedAt(@Param("conversationId") UUID conversationId, @Param("messageId") UUID messageId);
+
+    long countByConversationIdAndDeletedFalse(UUID conversationId);
+}
@@ -0,0 +1,31 @@
+package com.eng.repositories;
+
+import com.eng.entities.ChatOutboxLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ChatOutboxLeaseRepository extends JpaRepository<ChatOutboxLease, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO chat_outbox_lease (owner, renewed_at) VALUES (:owner, NOW(3)) " +
+            "ON DUPLICATE KEY UPDATE renewed_at = NOW(3)", nativeQuery = true)
+    int renew(@Param("owner") String owner);
+
+    /**
+     * Relay instances that renewed their lease within the last {@code seconds}, by the database clock.
+     */
+    @Query(value = "SELECT owner FROM chat_outbox_lease WHERE renewed_at >= TIMESTAMPADD(SECOND, -:seconds, NOW(3))",
+            nativeQuery = true)
+    List<String> findLiveOwners(@Param("seconds") long seconds);
+
+    @Modifying
+    @Query(value = "DELETE FROM chat_outbox_lease WHERE renewed_at < TIMESTAMPADD(SECOND, -:seconds, NOW(3))",
+            nativeQuery = true)
+    int deleteExpired(@Param("seconds") long seconds);
+}
@@ -0,0 +1,28 @@
+package com.eng.repositories;
+
+import com.eng.entities.ChatOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ChatOutboxRepository extends JpaRepository<ChatOutboxEvent, Long> {
+
+    /**
+     * Locks the oldest pending events written by the instance. Events of instances missing from
+     * {@code liveOwners}, which always contains {@code owner}, are taken over once they are older than a lease,
+     * so a starting instance is not robbed before every relay has seen its lease. Rows locked by another relay
+     * instance are skipped.
+     */
+    @Query(value = "SELECT * FROM chat_outbox WHERE owner = :owner " +
+            "OR ((owner IS NULL OR owner NOT IN (:liveOwners)) AND created_at < TIMESTAMPADD(SECOND, -:leaseSeconds, NOW(3))) " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ChatOutboxEvent> lockNextBatch(@Param("owner") String owner,
+                                        @Param("liveOwners") Collection<String> liveOwners,
+                                        @Param("leaseSeconds") long leaseSeconds,
+                                        @Param("limit") int limit);
+}
@@ -2,9 +2,126 @@ package com.eng.repositories;
 
 import com.eng.entities.ConversationParticipant;
 import com.eng.entities.ConversationParticipantId;
+import com.eng.models.response.ParticipantReceiptResponse;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
 @Repository
 public interface ConversationParticipantRepository extends JpaRepository<ConversationParticipant, ConversationParticipantId> {
-} 
\ No newline at end of file
+
+    /**
+     * Message m comes after the read pointer of participant p in history order.
+     */
+    String AFTER_READ_POINTER = "(p.readUpTo IS NULL OR m.createdAt > p.readUpTo " +
+            "OR (m.createdAt = p.readUpTo AND p.readUpToId IS NOT NULL AND m.id > p.readUpToId))";
+
+    @Query("SELECT p.conversationId FROM ConversationParticipant p WHERE p.userId = :userId")
+    List<UUID> findConversationIdsByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Pairs of conversation id and the id of another participant, for every conversation of the user.
+     */
+    @Query("SELECT p.conversationId, peer.userId FROM ConversationParticipant p, ConversationParticipant peer " +
+            "WHERE p.userId = :userId AND peer.conversationId = p.conversationId AND peer.userId <> :userId")
+    List<Object[]> findPeerIdsByUserId(@Param("userId") UUID userId);
+
+    @Query("SELECT p.userId FROM ConversationParticipant p WHERE p.conversationId = :conversationId")
+    List<UUID> findUserIdsByConversationId(@Param("conversationId") UUID conversationId);
+
+    /**
+     * Moves the delivered pointer of the user forward to a message, (createdAt, id) in history order. A pointer
+     * without an id covers every message of its instant.
+     */
+    @Modifying
+    @Query("UPDATE ConversationParticipant p SET p.deliveredUpTo = :at, p.deliveredUpToId = :messageId " +
+            "WHERE p.conversationId = :conversationId AND p.userId = :userId " +
+            "AND (p.deliveredUpTo IS NULL OR p.deliveredUpTo < :at " +
+            "OR (p.deliveredUpTo = :at AND p.deliveredUpToId < :messageId))")
+    int advanceDeliveredUpTo(@Param("conversationId") UUID conversationId, @Param("userId") UUID userId,
+                             @Param("at") Date at, @Param("messageId") UUID messageId);
+
+    /**
+     * Moves the read pointer, and the delivered pointer when it is behind. MySQL assigns left to right, so the
+     * delivered id is set before the delivered time it is compared with changes.
+     */
+    @Modifying
+    @Query("UPDATE ConversationParticipant p SET p.readUpTo = :at, p.readUpToId = :messageId, " +
+            "p.deliveredUpToId = CASE WHEN p.deliveredUpTo IS NULL OR p.deliveredUpTo < :at " +
+            "OR (p.deliveredUpTo = :at AND p.deliveredUpToId < :messageId) THEN :messageId ELSE p.deliveredUpToId END, " +
+            "p.deliveredUpTo = CASE WHEN p.deliveredUpTo IS NULL OR p.deliveredUpTo < :at THEN :at ELSE p.deliveredUpTo END " +
+            "WHERE p.conversationId = :conversationId AND p.userId = :userId " +
+            "AND (p.readUpTo IS NULL OR p.readUpTo < :at " +
+            "OR (p.readUpTo = :at AND p.readUpToId < :messageId))")
+    int advanceReadUpTo(@Param("conversationId") UUID conversationId, @Param("userId") UUID userId,
+                        @Param("at") Date at, @Param("messageId") UUID messageId);
+
+    /**
+     * Moves the delivered pointer of the user to a message, reading its time in the same statement.
+     */
+    @Modifying
+    @Query(value = "UPDATE conversation_participant p JOIN message m ON m.conversation_id = p.conversation_id " +
+            "SET p.delivered_up_to = m.created_at, p.delivered_up_to_id = m.id " +
+            "WHERE m.id = UUID_TO_BIN(:messageId) AND p.user_id = UUID_TO_BIN(:userId) " +
+            "AND (p.delivered_up_to IS NULL OR p.delivered_up_to < m.created_at " +
+            "OR (p.delivered_up_to = m.created_at AND p.delivered_up_to_id < m.id))", nativeQuery = true)
+    int advanceDeliveredTo(@Param("messageId") String messageId, @Param("userId") String userId);
+
+    /**
+     * Moves the read pointer of the user to a message, reading its time in the same statement. Unlike
+     * {@link #advanceReadUpTo} it leaves the delivered pointer alone: a multi-table UPDATE does not assign left to
+     * right, so callers advance it with {@link #advanceDeliveredTo} first.
+     */
+    @Modifying
+    @Query(value = "UPDATE conversation_participant p JOIN message m ON m.conversation_id = p.conversation_id " +
+            "SET p.read_up_to = m.created_at, p.read_up_to_id = m.id " +
+            "WHERE m.id = UUID_TO_BIN(:messageId) AND p.user_id = UUID_TO_BIN(:userId) " +
+            "AND (p.read_up_to IS NULL OR p.read_up_to < m.created_at " +
+            "OR (p.read_up_to = m.created_at AND p.read_up_to_id < m.id))", nativeQuery = true)
+    int advanceReadTo(@Param("messageId") String messageId, @Param("userId") String userId);
+
+    /**
+     * Receipt pointers and memberships changed after a sync position in the conversations of a user,
+     * (updatedAt, conversationId, userId) in keyset order.
+     */
+    @Query("SELECT new com.eng.models.response.ParticipantReceiptResponse(p.conversationId, p.userId, " +
+            "p.deliveredUpTo, p.deliveredUpToId, p.readUpTo, p.readUpToId, p.updatedAt) FROM ConversationParticipant p WHERE p.conversationId IN " +
+            "(SELECT cp.conversationId FROM ConversationParticipant cp WHERE cp.userId = :userId) " +
+            "AND (p.updatedAt > :since OR (p.updatedAt = :since AND (p.conversationId > :afterConversationId " +
+            "OR (p.conversationId = :afterConversationId AND p.userId > :afterUserId)))) " +
+            "ORDER BY p.updatedAt ASC, p.conversationId ASC, p.userId ASC")
+    Slice<ParticipantReceiptResponse> findChangedSince(@Param("userId") UUID userId, @Param("since") Date since,
+                                                       @Param("afterConversationId") UUID afterConversationId,
+                                                       @Param("afterUserId") UUID afterUserId, Pageable pageable);
+
+    /**
+     * Messages of others after the read pointer of a user, per conversation.
+     */
+    @Query("SELECT p.conversationId, COUNT(m) FROM ConversationParticipant p, Message m " +
+            "WHERE p.userId = :userId AND m.conversation.id = p.conversationId AND m.deleted = false " +
+            "AND m.senderId <> :userId AND " + AFTER_READ_POINTER + " GROUP BY p.conversationId")
+    List<Object[]> countUnreadByUserId(@Param("userId") UUID userId);
+
+    @Query("SELECT COUNT(m) FROM ConversationParticipant p, Message m " +
+            "WHERE p.conversationId = :conversationId AND p.userId = :userId AND m.conversation.id = p.conversationId " +
+            "AND m.deleted = false AND m.senderId <> :userId AND " + AFTER_READ_POINTER)
+    long countUnread(@Param("conversationId") UUID conversationId, @Param("userId") UUID userId);
+
+    @Query("SELECT p.userId FROM ConversationParticipant p WHERE p.conversationId = :conversationId " +
+            "AND (p.deliveredUpTo > :at OR (p.deliveredUpTo = :at AND (p.deliveredUpToId IS NULL OR p.deliveredUpToId >= :messageId)))")
+    List<UUID> findUserIdsDeliveredUpTo(@Param("conversationId") UUID conversationId, @Param("at") Date at,
+                                        @Param("messageId") UUID messageId);
+
+    @Query("SELECT p.userId FROM ConversationParticipant p WHERE p.conversationId = :conversationId " +
+            "AND (p.readUpTo > :at OR (p.readUpTo = :at AND (p.readUpToId IS NULL OR p.readUpToId >= :messageId)))")
+    List<UUID> findUserIdsReadUpTo(@Param("conversationId") UUID conversationId, @Param("at") Date at,
+                                   @Param("messageId") UUID messageId);
+}
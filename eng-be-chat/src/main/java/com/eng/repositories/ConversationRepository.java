@@ -1,11 +1,16 @@
 package com.eng.repositories;
 
 import com.eng.entities.Conversation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,4 +23,27 @@ public interface ConversationRepository extends JpaRepository<Conversation, UUID
 
     List<Conversation> findByParticipantsUserId(UUID userId);
 
-} 
\ No newline at end of file
+    /**
+     * Conversations of a user changed after a sync position, including new conversations and last message moves,
+     * (updatedAt, id) in keyset order.
+     */
+    @Query("SELECT c FROM Conversation c WHERE c.id IN " +
+            "(SELECT cp.conversationId FROM ConversationParticipant cp WHERE cp.userId = :userId) " +
+            "AND (c.updatedAt > :since OR (c.updatedAt = :since AND c.id > :afterId)) " +
+            "ORDER BY c.updatedAt ASC, c.id ASC")
+    Slice<Conversation> findChangedSince(@Param("userId") UUID userId, @Param("since") Date since,
+                                         @Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Moves the last message pointer forward only, (last_message_at, last_message_id) in history order, so a late
+     * flush never replaces a newer message.
+     */
+    @Modifying
+    @Query("UPDATE Conversation c SET c.lastMessageId = :messageId, c.lastMessageAt = :lastMessageAt " +
+            "WHERE c.id = :conversationId AND (c.lastMessageAt IS NULL OR c.lastMessageAt < :lastMessageAt " +
+            "OR (c.lastMessageAt = :lastMessageAt AND c.lastMessageId < :messageId))")
+    int updateLastMessage(@Param("conversationId") UUID conversationId,
+                          @Param("messageId") UUID messageId,
+                          @Param("lastMessageAt") Instant lastMessageAt);
+
+}
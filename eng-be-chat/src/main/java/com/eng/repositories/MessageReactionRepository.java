@@ -0,0 +1,52 @@
+package com.eng.repositories;
+
+import com.eng.entities.MessageReaction;
+import com.eng.entities.MessageReactionId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MessageReactionRepository extends JpaRepository<MessageReaction, MessageReactionId> {
+
+    @Modifying
+    @Query(value = "INSERT INTO message_reaction (message_id, reaction, reaction_count) " +
+            "VALUES (UUID_TO_BIN(:messageId), :reaction, 1) " +
+            "ON DUPLICATE KEY UPDATE reaction_count = reaction_count + 1", nativeQuery = true)
+    int increment(@Param("messageId") String messageId, @Param("reaction") String reaction);
+
+    @Modifying
+    @Query(value = "UPDATE message_reaction SET reaction_count = reaction_count - 1 " +
+            "WHERE message_id = UUID_TO_BIN(:messageId) AND reaction = :reaction AND reaction_count > 0", nativeQuery = true)
+    int decrement(@Param("messageId") String messageId, @Param("reaction") String reaction);
+
+    /**
+     * Reaction counts of the messages with, per row, the caller's user id when the caller picked that reaction.
+     * Archived messages read their frozen counts from the archive tables in the same statement.
+     */
+    @Query("SELECT r.messageId, r.reaction, r.count, ms.userId FROM MessageReaction r " +
+            "LEFT JOIN MessageStatus ms ON ms.message.id = r.messageId AND ms.userId = :userId AND ms.reaction = r.reaction " +
+            "WHERE r.messageId IN :messageIds AND r.count > 0 " +
+            "UNION ALL SELECT a.messageId, a.reaction, a.count, s.userId FROM ArchivedMessageReaction a " +
+            "LEFT JOIN ArchivedMessageStatus s ON s.messageId = a.messageId AND s.userId = :userId AND s.reaction = a.reaction " +
+            "WHERE a.messageId IN :messageIds AND a.count > 0")
+    List<Object[]> findSummaries(@Param("messageIds") Collection<UUID> messageIds, @Param("userId") UUID userId);
+
+    /**
+     * Copies the reaction counts of messages being archived into message_reaction_archive, in the archiver's transaction.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO message_reaction_archive (message_id, reaction, reaction_count) " +
+            "SELECT message_id, reaction, reaction_count FROM message_reaction WHERE message_id IN (:ids)", nativeQuery = true)
+    int copyToArchive(@Param("ids") List<byte[]> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM message_reaction WHERE message_id IN (:ids)", nativeQuery = true)
+    int deleteArchived(@Param("ids") List<byte[]> ids);
+}
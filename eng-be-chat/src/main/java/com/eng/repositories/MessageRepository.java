@@ -1,19 +1,173 @@
 package com.eng.repositories;
 
+import com.eng.constants.AttachmentStatus;
 import com.eng.entities.Message;
+import com.eng.models.response.MessageResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, UUID> {
 
-    @Query("SELECT m FROM Message m WHERE m.conversation.id = :conversationId AND m.deleted = false ORDER BY m.createdAt DESC")
-    Page<Message> findByConversationId(@Param("conversationId") UUID conversationId, Pageable pageable);
+    /**
+     * Read-only projection of a message straight into {@link MessageResponse}: no entity is managed, and
+     * m.conversation.id is read from the foreign key so the eager conversation is never joined or loaded.
+     */
+    String MESSAGE_RESPONSE = "SELECT new com.eng.models.response.MessageResponse(m.id, m.conversation.id, m.senderId, " +
+            "m.content, m.type, m.replyTo, m.clientMessageId, m.attachmentKey, m.attachmentName, m.attachmentContentType, " +
+            "m.attachmentSize, m.attachmentStatus, m.deleted, m.edited, m.editedAt, m.version, m.createdAt, m.updatedAt) ";
 
-} 
\ No newline at end of file
+    @Query(value = MESSAGE_RESPONSE + "FROM Message m WHERE m.conversation.id = :conversationId AND m.deleted = false " +
+            "ORDER BY m.createdAt DESC, m.id DESC",
+            countQuery = "SELECT COUNT(m) FROM Message m WHERE m.conversation.id = :conversationId AND m.deleted = false")
+    Page<MessageResponse> findByConversationId(@Param("conversationId") UUID conversationId, Pageable pageable);
+
+    /**
+     * Keyset pages over the (conversation_id, is_deleted, created_at, id) index: the position of the anchor
+     * message is the cursor, so no rows are skipped with OFFSET and no count query is issued.
+     */
+    @Query(MESSAGE_RESPONSE + "FROM Message m WHERE m.conversation.id = :conversationId AND m.deleted = false " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    Slice<MessageResponse> findLatest(@Param("conversationId") UUID conversationId, Pageable pageable);
+
+    @Query(MESSAGE_RESPONSE + "FROM Message m WHERE m.conversation.id = :conversationId AND m.deleted = false " +
+            "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :messageId)) " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    Slice<MessageResponse> findBefore(@Param("conversationId") UUID conversationId,
+                              @Param("createdAt") Date createdAt,
+                              @Param("messageId") UUID messageId,
+                              Pageable pageable);
+
+    @Query(MESSAGE_RESPONSE + "FROM Message m WHERE m.conversation.id = :conversationId AND m.deleted = false " +
+            "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :messageId)) " +
+            "ORDER BY m.createdAt ASC, m.id ASC")
+    Slice<MessageResponse> findAfter(@Param("conversationId") UUID conversationId,
+                             @Param("createdAt") Date createdAt,
+                             @Param("messageId") UUID messageId,
+                             Pageable pageable);
+
+    /**
+     * Messages created, edited or deleted after a sync position in the conversations of a user, (updatedAt, id)
+     * in keyset order.
+     */
+    @Query(MESSAGE_RESPONSE + "FROM Message m WHERE m.conversation.id IN " +
+            "(SELECT cp.conversationId FROM ConversationParticipant cp WHERE cp.userId = :userId) " +
+            "AND (m.updatedAt > :since OR (m.updatedAt = :since AND m.id > :afterId)) " +
+            "ORDER BY m.updatedAt ASC, m.id ASC")
+    Slice<MessageResponse> findChangedSince(@Param("userId") UUID userId, @Param("since") Date since,
+                                            @Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Newest of the given messages that belong to the conversation, where a receipt pointer moves to.
+     */
+    @Query(MESSAGE_RESPONSE + "FROM Message m WHERE m.id IN :messageIds AND m.conversation.id = :conversationId " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    List<MessageResponse> findNewestIn(@Param("conversationId") UUID conversationId,
+                                       @Param("messageIds") Collection<UUID> messageIds,
+                                       Pageable pageable);
+
+    /**
+     * Changes of all conversations since a point in time, used to keep the local search index in step with
+     * writes handled by other instances.
+     */
+    @Query(MESSAGE_RESPONSE + "FROM Message m WHERE m.updatedAt >= :since ORDER BY m.updatedAt ASC, m.id ASC")
+    Slice<MessageResponse> findChangedSince(@Param("since") Date since, Pageable pageable);
+
+    /**
+     * Chunks of live messages in id order, used to rebuild the search index without loading the whole table.
+     */
+    @Query(MESSAGE_RESPONSE + "FROM Message m WHERE m.deleted = false ORDER BY m.id ASC")
+    Slice<MessageResponse> findFirstChunk(Pageable pageable);
+
+    @Query(MESSAGE_RESPONSE + "FROM Message m WHERE m.deleted = false AND m.id > :afterId ORDER BY m.id ASC")
+    Slice<MessageResponse> findChunkAfter(@Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Whole conversation in chronological order through a forward-only cursor, read 500 rows per round trip.
+     * Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(MESSAGE_RESPONSE + "FROM Message m WHERE m.conversation.id = :conversationId AND m.deleted = false " +
+            "ORDER BY m.createdAt ASC, m.id ASC")
+    Stream<MessageResponse> streamByConversationId(@Param("conversationId") UUID conversationId);
+
+    @Query("SELECT m.createdAt FROM Message m WHERE m.id = :messageId AND m.conversation.id = :conversationId")
+    Optional<Date> findCreatedAt(@Param("conversationId") UUID conversationId, @Param("messageId") UUID messageId);
+
+    /**
+     * Locks the next messages the archiver may move: untouched for the archive age, or soft-deleted and past
+     * the grace period. Messages still referenced as a conversation's last message or by a hot reply stay,
+     * because their foreign keys would be nulled on delete. Rows locked by another instance are skipped.
+     * Returns the message id and the conversation id of every locked row.
+     */
+    @Query(value = "SELECT m.id, BIN_TO_UUID(m.conversation_id) FROM message m WHERE m.updated_at < :deletedBefore " +
+            "AND (m.updated_at < :archiveBefore OR m.is_deleted = TRUE) " +
+            "AND NOT EXISTS (SELECT 1 FROM conversation c WHERE c.last_message_id = m.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM message r WHERE r.reply_to = m.id) " +
+            "ORDER BY m.updated_at LIMIT :limit FOR UPDATE OF m SKIP LOCKED", nativeQuery = true)
+    List<Object[]> lockArchivable(@Param("archiveBefore") Date archiveBefore,
+                                @Param("deletedBefore") Date deletedBefore,
+                                @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO message_archive (id, conversation_id, sender_id, content, type, reply_to, " +
+            "client_message_id, attachment_key, attachment_name, attachment_content_type, attachment_size, attachment_status, " +
+            "is_deleted, is_edited, edited_at, version, created_at, updated_at) " +
+            "SELECT id, conversation_id, sender_id, content, type, reply_to, client_message_id, attachment_key, attachment_name, " +
+            "attachment_content_type, attachment_size, attachment_status, is_deleted, is_edited, edited_at, version, " +
+            "created_at, updated_at FROM message WHERE id IN (:ids)", nativeQuery = true)
+    int copyToArchive(@Param("ids") List<byte[]> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM message WHERE id IN (:ids)", nativeQuery = true)
+    int deleteArchived(@Param("ids") List<byte[]> ids);
+
+    Optional<Message> findBySenderIdAndClientMessageId(UUID senderId, UUID clientMessageId);
+
+    /**
+     * Conversation id, id and creation time of the messages in an id range, in id order. Time-ordered ids make this
+     * a primary key range scan over the messages created in a period; a random (v4) id falls in it only by chance.
+     */
+    @Query("SELECT m.conversation.id, m.id, m.createdAt FROM Message m WHERE m.id > :afterId AND m.id < :beforeId " +
+            "ORDER BY m.id ASC")
+    List<Object[]> findIdRange(@Param("afterId") UUID afterId, @Param("beforeId") UUID beforeId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Message m SET m.attachmentStatus = :status, m.version = m.version + 1 WHERE m.id = :messageId")
+    int updateAttachmentStatus(@Param("messageId") UUID messageId, @Param("status") AttachmentStatus status);
+
+    /**
+     * Ids and conversation ids of messages whose attachment is still PENDING after their upload should have ended.
+     */
+    @Query("SELECT m.id, m.conversation.id FROM Message m " +
+            "WHERE m.attachmentStatus = com.eng.constants.AttachmentStatus.PENDING AND m.createdAt < :before ORDER BY m.createdAt")
+    List<Object[]> findStalePendingAttachments(@Param("before") Date before, Pageable pageable);
+
+    /**
+     * Fails an attachment only while it is PENDING, so an upload that completed in the meantime keeps READY.
+     */
+    @Modifying
+    @Query("UPDATE Message m SET m.attachmentStatus = com.eng.constants.AttachmentStatus.FAILED, m.version = m.version + 1 " +
+            "WHERE m.id = :messageId AND m.attachmentStatus = com.eng.constants.AttachmentStatus.PENDING")
+    int failPendingAttachment(@Param("messageId") UUID messageId);
+
+}
@@ -1,17 +1,173 @@
 package com.eng.repositories;
 
+import com.eng.constants.MessageStatusType;
 import com.eng.entities.MessageStatus;
 import com.eng.entities.MessageStatusId;
+import com.eng.models.response.MessageStatusEventResponse;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface MessageStatusRepository extends JpaRepository<MessageStatus, MessageStatusId> {
     @Query("SELECT ms FROM MessageStatus ms WHERE ms.message.id = :messageId AND ms.userId = :userId")
     MessageStatus findByMessageIdAndUserId(@Param("messageId") UUID messageId, @Param("userId") UUID userId);
-} 
\ No newline at end of file
+
+    /**
+     * Creates the SENT status row of every participant of a conversation for one message.
+     * Written as a single INSERT ... SELECT so the cost of a send does not grow with the group size.
+     * The sender gets a row too, it holds the sender's reaction; read updates and unread counts skip it.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO message_status (message_id, user_id, status) " +
+            "SELECT UUID_TO_BIN(:messageId), cp.user_id, 'SENT' FROM conversation_participant cp " +
+            "WHERE cp.conversation_id = UUID_TO_BIN(:conversationId)", nativeQuery = true)
+    int insertSentStatuses(@Param("messageId") String messageId, @Param("conversationId") String conversationId);
+
+    @Query("SELECT ms.userId FROM MessageStatus ms WHERE ms.message.id = :messageId AND ms.status IN :statuses")
+    List<UUID> findUserIdsByMessageIdAndStatusIn(@Param("messageId") UUID messageId,
+                                                 @Param("statuses") Collection<MessageStatusType> statuses);
+
+    /**
+     * Messages of a conversation among {@code messageIds} whose status for the user is one of {@code statuses}.
+     */
+    @Query("SELECT ms.message.id FROM MessageStatus ms WHERE ms.userId = :userId AND ms.message.id IN :messageIds " +
+            "AND ms.message.conversation.id = :conversationId AND ms.status IN :statuses")
+    List<UUID> findMessageIdsInStatus(@Param("conversationId") UUID conversationId,
+                                      @Param("userId") UUID userId,
+                                      @Param("messageIds") Collection<UUID> messageIds,
+                                      @Param("statuses") Collection<MessageStatusType> statuses);
+
+    @Modifying
+    @Query("UPDATE MessageStatus ms SET ms.status = com.eng.constants.MessageStatusType.DELIVERED, ms.deliveredAt = :at " +
+            "WHERE ms.userId = :userId AND ms.message.id IN :messageIds " +
+            "AND ms.status = com.eng.constants.MessageStatusType.SENT")
+    int markDelivered(@Param("userId") UUID userId, @Param("messageIds") Collection<UUID> messageIds, @Param("at") Date at);
+
+    /**
+     * Marks messages of others read for the user. Own and deleted messages are left alone so the returned count
+     * matches what {@link #countUnread} stops counting.
+     */
+    @Modifying
+    @Query("UPDATE MessageStatus ms SET ms.status = com.eng.constants.MessageStatusType.READ, ms.readAt = :at, " +
+            "ms.deliveredAt = COALESCE(ms.deliveredAt, :at) " +
+            "WHERE ms.userId = :userId AND ms.status <> com.eng.constants.MessageStatusType.READ " +
+            "AND ms.message.id IN (SELECT m.id FROM Message m WHERE m.id IN :messageIds " +
+            "AND m.senderId <> :userId AND m.deleted = false)")
+    int markRead(@Param("userId") UUID userId, @Param("messageIds") Collection<UUID> messageIds, @Param("at") Date at);
+
+    /**
+     * Status and reaction changes after a sync position on messages of the conversations of a user,
+     * (updatedAt, messageId, userId) in keyset order.
+     */
+    @Query("SELECT new com.eng.models.response.MessageStatusEventResponse(ms.message.id, ms.userId, ms.status, ms.reaction, ms.updatedAt) " +
+            "FROM MessageStatus ms WHERE ms.message.conversation.id IN " +
+            "(SELECT cp.conversationId FROM ConversationParticipant cp WHERE cp.userId = :userId) " +
+            "AND (ms.updatedAt > :since OR (ms.updatedAt = :since AND (ms.message.id > :afterMessageId " +
+            "OR (ms.message.id = :afterMessageId AND ms.userId > :afterUserId)))) " +
+            "ORDER BY ms.updatedAt ASC, ms.message.id ASC, ms.userId ASC")
+    Slice<MessageStatusEventResponse> findChangedSince(@Param("userId") UUID userId, @Param("since") Date since,
+                                                       @Param("afterMessageId") UUID afterMessageId,
+                                                       @Param("afterUserId") UUID afterUserId, Pageable pageable);
+
+    /**
+     * Marks the unread statuses of a user on every live message of others in a conversation up to and including
+     * the given message as read, in one statement over the conversation history index. Like {@link #markRead}
+     * it skips own and deleted messages, the count is taken off the unread counter.
+     */
+    @Modifying
+    @Query(value = "UPDATE message_status " +
+            "SET status = 'READ', read_at = NOW(), delivered_at = COALESCE(delivered_at, NOW()) " +
+            "WHERE user_id = UUID_TO_BIN(:userId) AND status <> 'READ' AND message_id IN " +
+            "(SELECT m.id FROM message m WHERE m.conversation_id = UUID_TO_BIN(:conversationId) AND m.is_deleted = FALSE " +
+            "AND m.sender_id <> UUID_TO_BIN(:userId) " +
+            "AND (m.created_at < :createdAt OR (m.created_at = :createdAt AND m.id <= UUID_TO_BIN(:messageId))))", nativeQuery = true)
+    int markReadUpTo(@Param("conversationId") String conversationId, @Param("userId") String userId,
+                     @Param("createdAt") Date createdAt, @Param("messageId") String messageId);
+
+    /**
+     * Unread messages of a user per conversation, counted over the (user_id, status) index.
+     */
+    @Query("SELECT ms.message.conversation.id, COUNT(ms) FROM MessageStatus ms WHERE ms.userId = :userId " +
+            "AND ms.status <> com.eng.constants.MessageStatusType.READ AND ms.message.senderId <> :userId " +
+            "AND ms.message.deleted = false GROUP BY ms.message.conversation.id")
+    List<Object[]> countUnreadByUserId(@Param("userId") UUID userId);
+
+    @Query("SELECT COUNT(ms) FROM MessageStatus ms WHERE ms.userId = :userId " +
+            "AND ms.message.conversation.id = :conversationId " +
+            "AND ms.status <> com.eng.constants.MessageStatusType.READ AND ms.message.senderId <> :userId " +
+            "AND ms.message.deleted = false")
+    long countUnread(@Param("conversationId") UUID conversationId, @Param("userId") UUID userId);
+
+    /**
+     * The user's reactions on the messages, archived messages included.
+     */
+    @Query("SELECT ms.message.id, ms.reaction FROM MessageStatus ms " +
+            "WHERE ms.userId = :userId AND ms.message.id IN :messageIds AND ms.reaction IS NOT NULL " +
+            "UNION ALL SELECT a.messageId, a.reaction FROM ArchivedMessageStatus a " +
+            "WHERE a.userId = :userId AND a.messageId IN :messageIds AND a.reaction IS NOT NULL")
+    List<Object[]> findReactions(@Param("userId") UUID userId, @Param("messageIds") Collection<UUID> messageIds);
+
+    /**
+     * Marks one message delivered for the user if it was only sent, in one statement on the primary key.
+     */
+    @Modifying
+    @Query(value = "UPDATE message_status SET status = 'DELIVERED', delivered_at = NOW() " +
+            "WHERE message_id = UUID_TO_BIN(:messageId) AND user_id = UUID_TO_BIN(:userId) AND status = 'SENT'", nativeQuery = true)
+    int markMessageDelivered(@Param("messageId") String messageId, @Param("userId") String userId);
+
+    @Modifying
+    @Query(value = "UPDATE message_status SET status = 'READ', read_at = NOW(), delivered_at = COALESCE(delivered_at, NOW()) " +
+            "WHERE message_id = UUID_TO_BIN(:messageId) AND user_id = UUID_TO_BIN(:userId) AND status <> 'READ' " +
+            "AND message_id IN (SELECT m.id FROM message m WHERE m.id = UUID_TO_BIN(:messageId) " +
+            "AND m.sender_id <> UUID_TO_BIN(:userId) AND m.is_deleted = FALSE)", nativeQuery = true)
+    int markMessageRead(@Param("messageId") String messageId, @Param("userId") String userId);
+
+    /**
+     * The user's current reaction, an empty string for none, locked so concurrent changes of the same reaction move
+     * the summary counts once. The message row is locked with it, so the archiver cannot take the message in between;
+     * empty when the message is no longer in the hot table.
+     */
+    @Query(value = "SELECT COALESCE(ms.reaction, '') FROM message m LEFT JOIN message_status ms " +
+            "ON ms.message_id = m.id AND ms.user_id = UUID_TO_BIN(:userId) " +
+            "WHERE m.id = UUID_TO_BIN(:messageId) FOR UPDATE", nativeQuery = true)
+    Optional<String> findReactionForUpdate(@Param("messageId") String messageId, @Param("userId") String userId);
+
+    @Modifying
+    @Query(value = "UPDATE message_status SET reaction = :reaction " +
+            "WHERE message_id = UUID_TO_BIN(:messageId) AND user_id = UUID_TO_BIN(:userId) " +
+            "AND COALESCE(reaction, '') <> COALESCE(:reaction, '')", nativeQuery = true)
+    int updateReaction(@Param("messageId") String messageId, @Param("userId") String userId, @Param("reaction") String reaction);
+
+    /**
+     * Stores a reaction when receipts are kept as watermarks and the status row may not exist yet.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO message_status (message_id, user_id, status, reaction) " +
+            "VALUES (UUID_TO_BIN(:messageId), UUID_TO_BIN(:userId), 'SENT', :reaction) " +
+            "ON DUPLICATE KEY UPDATE reaction = VALUES(reaction)", nativeQuery = true)
+    int upsertReaction(@Param("messageId") String messageId, @Param("userId") String userId, @Param("reaction") String reaction);
+
+    /**
+     * Copies the statuses of messages being archived into message_status_archive, in the archiver's transaction.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO message_status_archive (message_id, user_id, status, read_at, delivered_at, reaction, updated_at) " +
+            "SELECT message_id, user_id, status, read_at, delivered_at, reaction, updated_at FROM message_status " +
+            "WHERE message_id IN (:ids)", nativeQuery = true)
+    int copyToArchive(@Param("ids") List<byte[]> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM message_status WHERE message_id IN (:ids)", nativeQuery = true)
+    int deleteArchived(@Param("ids") List<byte[]> ids);
+}
@@ -0,0 +1,19 @@
+package com.eng.service;
+
+import com.eng.entities.Message;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface AttachmentService {
+
+    void attach(Message message, MultipartFile file);
+
+    /**
+     * Marks attachments still PENDING after the pending timeout as FAILED and deletes staged files of that age.
+     */
+    void sweep();
+
+    /**
+     * Writes the status of uploads that finished while their conversation was being moved to another shard.
+     */
+    void completeDeferred();
+}
@@ -5,6 +5,7 @@ import java.util.UUID;
 
 import com.eng.entities.Conversation;
 import com.eng.models.response.ConversationResponse;
+import com.eng.models.response.InboxResponse;
 import com.eng.models.response.PageResponse;
 import com.eng.models.response.UserRelationshipResponse;
 
@@ -21,7 +22,11 @@ public interface ConversationService {
 
     ConversationResponse createGroupConversation(String name, List<UUID> participantIds);
 
-    void updateLastMessage(UUID conversationId, UUID messageId);
-
     Conversation getConversation(UUID conversationId);
+
+    Conversation getConversationReference(UUID conversationId);
+
+    List<UUID> getParticipantIds(UUID conversationId);
+
+    InboxResponse getInbox();
 }
@@ -0,0 +1,11 @@
+package com.eng.service;
+
+import java.util.Date;
+import java.util.UUID;
+
+public interface LastMessageService {
+
+    void offer(UUID conversationId, UUID messageId, Date createdAt);
+
+    void flush();
+}
@@ -0,0 +1,45 @@
+package com.eng.service;
+
+import com.eng.models.response.MessageResponse;
+import com.eng.models.response.SliceResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface MessageArchiveService {
+
+    /**
+     * Moves one round of cold messages from the hot message table into message_archive.
+     */
+    void archive();
+
+    long countArchived(UUID conversationId);
+
+    /**
+     * Content of an offset page over hot then archived messages, newest first.
+     */
+    List<MessageResponse> readPage(UUID conversationId, Page<MessageResponse> hot, Pageable pageable);
+
+    /**
+     * Merges a hot keyset page older than the cursor (the latest page when {@code createdAt} is null)
+     * with archived messages whenever the archive can hold messages that belong on it.
+     */
+    SliceResponse<MessageResponse> readBefore(UUID conversationId, Slice<MessageResponse> hot,
+                                              Date createdAt, UUID messageId, int size);
+
+    SliceResponse<MessageResponse> readAfter(UUID conversationId, Slice<MessageResponse> hot,
+                                             Date createdAt, UUID messageId, int size);
+
+    Optional<Date> findCreatedAt(UUID conversationId, UUID messageId);
+
+    /**
+     * Archived messages of a conversation in chronological order. Must be consumed inside a transaction and closed.
+     */
+    Stream<MessageResponse> streamByConversationId(UUID conversationId);
+}
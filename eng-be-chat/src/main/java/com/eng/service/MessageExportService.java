@@ -0,0 +1,11 @@
+package com.eng.service;
+
+import com.eng.constants.ExportFormat;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.UUID;
+
+public interface MessageExportService {
+
+    StreamingResponseBody exportMessages(UUID conversationId, ExportFormat format);
+}
@@ -0,0 +1,13 @@
+package com.eng.service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface MessageIdempotencyService {
+
+    Optional<UUID> findMessageId(UUID senderId, UUID clientMessageId);
+
+    boolean claim(UUID senderId, UUID clientMessageId);
+
+    void remember(UUID senderId, UUID clientMessageId, UUID messageId);
+}
@@ -0,0 +1,20 @@
+package com.eng.service;
+
+import com.eng.models.response.MessageResponse;
+import com.eng.models.response.MessageSearchResponse;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface MessageSearchService {
+
+    List<MessageSearchResponse> search(String query, UUID conversationId, Integer size);
+
+    void index(MessageResponse message);
+
+    void rebuild();
+
+    void refresh();
+
+    void catchUp();
+}
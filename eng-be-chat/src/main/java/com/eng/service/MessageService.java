@@ -1,8 +1,12 @@
 package com.eng.service;
 
+import com.eng.constants.MessageStatusType;
+import com.eng.models.request.MessageAckRequest;
 import com.eng.models.request.MessageRequest;
+import com.eng.models.response.MessageReceiptResponse;
 import com.eng.models.response.MessageResponse;
 import com.eng.models.response.PageResponse;
+import com.eng.models.response.SliceResponse;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -12,8 +16,12 @@ public interface MessageService {
 
     PageResponse<MessageResponse> getMessages(UUID conversationId, Pageable pageable);
 
+    SliceResponse<MessageResponse> getMessageHistory(UUID conversationId, UUID before, UUID after, Integer size);
+
     MessageResponse sendMessage(MessageRequest messageRequest, MultipartFile file);
 
+    MessageResponse sendAttachment(MessageRequest messageRequest, MultipartFile file);
+
     MessageResponse editMessage(UUID messageId, String newContent);
 
     void deleteMessage(UUID messageId);
@@ -22,6 +30,18 @@ public interface MessageService {
 
     void markMessageAsRead(UUID messageId);
 
+    /**
+     * Marks every message of the conversation up to and including {@code messageId} as read by the caller.
+     */
+    void markConversationAsRead(UUID conversationId, UUID messageId);
+
+    /**
+     * Applies a batch of delivery or read acknowledgements sent by {@code userId} over its STOMP session.
+     */
+    void acknowledgeMessages(UUID conversationId, UUID userId, MessageStatusType status, MessageAckRequest request);
+
     void addReaction(UUID messageId, String reaction);
 
+    MessageReceiptResponse getMessageReceipts(UUID messageId);
+
 } 
\ No newline at end of file
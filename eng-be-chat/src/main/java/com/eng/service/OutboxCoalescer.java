@@ -0,0 +1,16 @@
+package com.eng.service;
+
+import java.util.List;
+
+/**
+ * Merges outbox events relayed together into one frame per destination.
+ */
+public interface OutboxCoalescer {
+
+    boolean coalesces(String destination);
+
+    /**
+     * Merges the JSON payloads of one destination, in the order they were published, into one payload.
+     */
+    String coalesce(List<String> payloads);
+}
@@ -0,0 +1,14 @@
+package com.eng.service;
+
+public interface OutboxService {
+
+    void publish(String destination, Object payload);
+
+    /**
+     * Stores the event like {@link #publish} but leaves it for the next relay pass instead of waking the relay
+     * on commit, so events published close together are relayed, and coalesced, in one batch.
+     */
+    void publishDeferred(String destination, Object payload);
+
+    void relay();
+}
@@ -0,0 +1,14 @@
+package com.eng.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ParticipantCacheService {
+
+    List<UUID> getParticipantIds(UUID conversationId);
+
+    void put(UUID conversationId, Collection<UUID> participantIds);
+
+    void evict(UUID conversationId);
+}
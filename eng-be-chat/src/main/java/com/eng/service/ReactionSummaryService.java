@@ -0,0 +1,21 @@
+package com.eng.service;
+
+import com.eng.models.response.MessageResponse;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface ReactionSummaryService {
+
+    /**
+     * Moves the user's reaction on a message from {@code previous} to {@code current} in the summary counts;
+     * either may be empty.
+     */
+    void reactionChanged(UUID messageId, String previous, String current);
+
+    /**
+     * Copies of the messages carrying their reaction summaries as seen by the user. Has to run on the
+     * conversation's shard.
+     */
+    List<MessageResponse> withReactions(List<MessageResponse> messages, UUID userId);
+}
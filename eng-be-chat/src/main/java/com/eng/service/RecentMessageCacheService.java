@@ -0,0 +1,24 @@
+package com.eng.service;
+
+import com.eng.models.response.MessageResponse;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RecentMessageCacheService {
+
+    /**
+     * Newest messages of a conversation, newest first, or empty when the buffer cannot answer {@code size}.
+     */
+    Optional<RecentMessages> getLatest(UUID conversationId, int size);
+
+    void messageAdded(MessageResponse message);
+
+    void messageUpdated(MessageResponse message);
+
+    void messageDeleted(MessageResponse message);
+
+    record RecentMessages(List<MessageResponse> messages, long total) {
+    }
+}
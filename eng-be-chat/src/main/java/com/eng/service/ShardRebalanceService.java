@@ -0,0 +1,22 @@
+package com.eng.service;
+
+import com.eng.models.response.ShardMoveResponse;
+import com.eng.models.response.ShardRebalanceResponse;
+
+import java.util.UUID;
+
+public interface ShardRebalanceService {
+
+    ShardMoveResponse move(UUID conversationId, Integer shard);
+
+    /**
+     * Starts a background job moving up to {@code limit} conversations that are not on the shard their id
+     * hashes to, for example after shards were added. Only one job runs per instance at a time.
+     */
+    ShardRebalanceResponse rebalance(Integer limit);
+
+    /**
+     * Progress of the running or last rebalance job of this instance.
+     */
+    ShardRebalanceResponse getRebalance();
+}
@@ -0,0 +1,74 @@
+package com.eng.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+public interface ShardService {
+
+    int shardCount();
+
+    /**
+     * Shard holding the conversation's conversation, participant, message and status rows.
+     */
+    int shardOf(UUID conversationId);
+
+    /**
+     * Places a new conversation on the shard chosen by the hash of its id and records it in the directory.
+     */
+    int place(UUID conversationId);
+
+    /**
+     * Points the directory at another shard; used by the rebalancer once the rows were copied.
+     */
+    void assign(UUID conversationId, int shard);
+
+    /**
+     * Shard a conversation is placed on when it is created with the current shard count.
+     */
+    int hashShard(UUID conversationId);
+
+    /**
+     * Runs work whose first statement must go to the conversation's shard. Has to be entered before the
+     * surrounding transaction touches the database.
+     */
+    <T> T onConversation(UUID conversationId, Supplier<T> work);
+
+    void runOnConversation(UUID conversationId, Runnable work);
+
+    /**
+     * Like {@link #onConversation} for the conversation the message belongs to; unknown messages run on shard 0.
+     */
+    <T> T onMessage(UUID messageId, Supplier<T> work);
+
+    void runOnMessage(UUID messageId, Runnable work);
+
+    <T> T onShard(int shard, Supplier<T> work);
+
+    /**
+     * Runs work once per shard in a read-only transaction, in parallel on other threads when there is more than one.
+     */
+    <T> List<T> onEveryShard(Supplier<T> work);
+
+    /**
+     * Conversation of a hot or archived message, cached. A miss queries the shards in order until one has the
+     * message, one statement per shard asked; unknown messages are not cached and ask every shard each time.
+     */
+    UUID findConversationId(UUID messageId);
+
+    boolean isMoving(UUID conversationId);
+
+    boolean lockMove(UUID conversationId);
+
+    /**
+     * Resets a move lock taken by this instance to its full lifetime.
+     *
+     * @return false when the lock expired or is held by another instance, the move must not continue
+     */
+    boolean extendMove(UUID conversationId);
+
+    /**
+     * Releases a move lock, but only one taken by this instance.
+     */
+    void unlockMove(UUID conversationId);
+}
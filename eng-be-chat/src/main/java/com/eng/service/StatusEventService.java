@@ -0,0 +1,16 @@
+package com.eng.service;
+
+import com.eng.models.response.MessageStatusEventResponse;
+
+import java.util.UUID;
+
+public interface StatusEventService {
+
+    /**
+     * Stores a status event of a conversation in the outbox with the surrounding transaction; it is relayed with
+     * the conversation's next batch.
+     */
+    void offer(UUID conversationId, MessageStatusEventResponse event);
+
+    void flush();
+}
@@ -0,0 +1,8 @@
+package com.eng.service;
+
+import com.eng.models.response.SyncResponse;
+
+public interface SyncService {
+
+    SyncResponse sync(String token);
+}
@@ -0,0 +1,27 @@
+package com.eng.service;
+
+import java.util.Map;
+import java.util.UUID;
+
+public interface UnreadCounterService {
+
+    /**
+     * Counts a new message as unread for every participant but the sender once the send commits.
+     */
+    void messageSent(UUID conversationId, UUID senderId);
+
+    /**
+     * Takes messages the user read off its counter once the read commits.
+     */
+    void messagesRead(UUID conversationId, UUID userId, long count);
+
+    /**
+     * Recounts the conversation of the user in the current transaction and stores the result once it commits.
+     * Has to run on the conversation's shard.
+     */
+    void refresh(UUID conversationId, UUID userId);
+
+    Map<UUID, Long> getUnreadCounts(UUID userId);
+
+    void reconcile();
+}
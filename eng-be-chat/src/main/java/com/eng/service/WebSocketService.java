@@ -3,6 +3,7 @@ package com.eng.service;
 import com.eng.models.response.MessageResponse;
 import com.eng.models.response.MessageTypingResponse;
 
+import java.util.Date;
 import java.util.UUID;
 
 public interface WebSocketService {
@@ -11,6 +12,8 @@ public interface WebSocketService {
     void notifyMessageDelivered(UUID conversationId, UUID messageId, UUID userId);
     
     void notifyMessageRead(UUID conversationId, UUID messageId, UUID userId);
+
+    void notifyConversationRead(UUID conversationId, UUID messageId, UUID userId, Date readUpTo);
     
     void notifyMessageReaction(UUID conversationId, UUID messageId, UUID userId, String reaction);
 
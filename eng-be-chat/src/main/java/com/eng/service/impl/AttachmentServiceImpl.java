@@ -0,0 +1,265 @@
+package com.eng.service.impl;
+
+import com.eng.constants.AttachmentStatus;
+import com.eng.entities.Message;
+import com.eng.exceptions.InternalServerException;
+import com.eng.mappers.MessageMapper;
+import com.eng.repositories.MessageRepository;
+import com.eng.service.AttachmentService;
+import com.eng.service.RecentMessageCacheService;
+import com.eng.service.ShardService;
+import com.eng.service.WebSocketService;
+import com.eng.services.S3Service;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.eng.constants.MessageErrors.USER_SERVER_ERROR;
+
+/**
+ * Stores message attachments in S3 without holding a request thread for the upload.
+ * <p>
+ * Multipart files are spooled to disk by the servlet container; the request thread only moves that file
+ * to a staging path. After the message commits, a bounded worker pool streams the staged file to S3 with
+ * a known content length, so the bytes are never buffered in heap. The message starts as PENDING and a
+ * WebSocket update is pushed when it becomes READY or FAILED. Uploads lost with their instance are failed by
+ * {@link #sweep} once they are PENDING for {@code pending-timeout-minutes}, which also removes their staged files.
+ * Uploads finishing while their conversation is being moved to another shard keep their status in memory until
+ * the move finished.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttachmentServiceImpl implements AttachmentService {
+
+    private static final String ATTACHMENT_PREFIX = "chat/";
+    private static final String STAGED_PREFIX = "chat-attachment-";
+    private static final String STAGED_SUFFIX = ".upload";
+
+    private final S3Service s3Service;
+    private final MessageRepository messageRepository;
+    private final MessageMapper messageMapper;
+    private final WebSocketService webSocketService;
+    private final RecentMessageCacheService recentMessageCacheService;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardService shardService;
+
+    @Value("${cloud.aws.s3.bucket}")
+    private String bucketName;
+
+    @Value("${custom.chat.attachment.pool-size:4}")
+    private int poolSize;
+
+    @Value("${custom.chat.attachment.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${custom.chat.attachment.pending-timeout-minutes:15}")
+    private long pendingTimeoutMinutes;
+
+    @Value("${custom.chat.attachment.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    private ThreadPoolExecutor uploadExecutor;
+
+    private final Map<UUID, DeferredCompletion> deferred = new ConcurrentHashMap<>();
+
+    /**
+     * Completion also runs in afterCompletion of the send, where the finished transaction is still bound to the
+     * thread; a new transaction keeps the status update from joining it and never being committed.
+     */
+    private TransactionTemplate completionTransaction;
+
+    @PostConstruct
+    void startExecutor() {
+        completionTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        completionTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        uploadExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "chat-attachment-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        uploadExecutor.shutdown();
+    }
+
+    @Override
+    public void attach(Message message, MultipartFile file) {
+        String fileName = StringUtils.hasText(file.getOriginalFilename())
+                ? StringUtils.getFilename(StringUtils.cleanPath(file.getOriginalFilename()))
+                : "attachment";
+        message.setAttachmentKey(ATTACHMENT_PREFIX + message.getConversation().getId() + "/" + UUID.randomUUID() + "/" + fileName);
+        message.setAttachmentName(fileName);
+        message.setAttachmentContentType(file.getContentType());
+        message.setAttachmentSize(file.getSize());
+        message.setAttachmentStatus(AttachmentStatus.PENDING);
+
+        Path staged = stage(file);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    submit(message, staged);
+                } else {
+                    deleteStaged(staged);
+                }
+            }
+        });
+    }
+
+    private Path stage(MultipartFile file) {
+        try {
+            // The container already spooled the part to disk, transferTo moves it instead of copying through heap
+            Path staged = Files.createTempFile(STAGED_PREFIX, STAGED_SUFFIX);
+            file.transferTo(staged);
+            return staged;
+        } catch (IOException e) {
+            log.error("Failed to stage attachment {}: {}", file.getOriginalFilename(), e.getMessage(), e);
+            throw new InternalServerException(USER_SERVER_ERROR.toString());
+        }
+    }
+
+    private void submit(Message message, Path staged) {
+        UUID messageId = message.getId();
+        UUID conversationId = message.getConversation().getId();
+        try {
+            uploadExecutor.execute(() -> upload(messageId, conversationId, message, staged));
+        } catch (RejectedExecutionException e) {
+            // Full queue or shutting down: the message is failed here, nothing escapes the send's completion
+            log.warn("Attachment upload of message {} was rejected, it is marked as failed", messageId);
+            deleteStaged(staged);
+            complete(messageId, conversationId, AttachmentStatus.FAILED);
+        }
+    }
+
+    private void upload(UUID messageId, UUID conversationId, Message message, Path staged) {
+        AttachmentStatus status = AttachmentStatus.READY;
+        try (InputStream inputStream = Files.newInputStream(staged)) {
+            s3Service.uploadFile(bucketName, message.getAttachmentKey(), message.getAttachmentSize(),
+                    message.getAttachmentContentType(), inputStream);
+        } catch (Exception e) {
+            log.error("Failed to upload attachment of message {}: {}", messageId, e.getMessage(), e);
+            status = AttachmentStatus.FAILED;
+        } finally {
+            deleteStaged(staged);
+        }
+        complete(messageId, conversationId, status);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${custom.chat.attachment.sweep-interval-ms:300000}")
+    public void sweep() {
+        Date before = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(pendingTimeoutMinutes));
+        for (int shard = 0; shard < shardService.shardCount(); shard++) {
+            try {
+                List<Object[]> stale = shardService.onShard(shard, () ->
+                        messageRepository.findStalePendingAttachments(before, PageRequest.of(0, sweepBatchSize)));
+                for (Object[] row : stale) {
+                    UUID messageId = (UUID) row[0];
+                    log.warn("Attachment of message {} is still pending, it is marked as failed", messageId);
+                    complete(messageId, (UUID) row[1], AttachmentStatus.FAILED);
+                }
+            } catch (Exception e) {
+                log.error("Attachment sweep failed on shard {}: {}", shard, e.getMessage(), e);
+            }
+        }
+        deleteStagedBefore(before);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${custom.chat.attachment.completion-retry-ms:1000}")
+    public void completeDeferred() {
+        for (UUID messageId : new ArrayList<>(deferred.keySet())) {
+            DeferredCompletion completion = deferred.remove(messageId);
+            if (completion != null) {
+                complete(messageId, completion.conversationId(), completion.status());
+            }
+        }
+    }
+
+    private void complete(UUID messageId, UUID conversationId, AttachmentStatus status) {
+        if (shardService.isMoving(conversationId)) {
+            // The rebalancer deletes the conversation from this shard after copying it, the update would be lost
+            deferred.merge(messageId, new DeferredCompletion(conversationId, status),
+                    (current, offered) -> current.status() == AttachmentStatus.READY ? current : offered);
+            return;
+        }
+        try {
+            shardService.runOnConversation(conversationId, () -> completionTransaction.executeWithoutResult(transaction -> {
+                // A late upload result still replaces a FAILED set by the sweeper, a failure never replaces READY
+                int updated = status == AttachmentStatus.FAILED
+                        ? messageRepository.failPendingAttachment(messageId)
+                        : messageRepository.updateAttachmentStatus(messageId, status);
+                if (updated == 0) {
+                    return;
+                }
+                messageRepository.findById(messageId)
+                        .map(messageMapper::toResponse)
+                        .ifPresent(response -> {
+                            recentMessageCacheService.messageUpdated(response);
+                            webSocketService.sendMessage(conversationId, response);
+                        });
+            }));
+        } catch (Exception e) {
+            log.error("Failed to mark attachment of message {} as {}: {}", messageId, status, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Staged files outlive their upload only when the instance stopped before the upload ran.
+     */
+    private void deleteStagedBefore(Date before) {
+        Path directory = Path.of(System.getProperty("java.io.tmpdir"));
+        try (DirectoryStream<Path> staged = Files.newDirectoryStream(directory, STAGED_PREFIX + "*" + STAGED_SUFFIX)) {
+            for (Path path : staged) {
+                if (Files.getLastModifiedTime(path).toMillis() < before.getTime()) {
+                    deleteStaged(path);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to list staged attachments in {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private void deleteStaged(Path staged) {
+        try {
+            Files.deleteIfExists(staged);
+        } catch (IOException e) {
+            log.warn("Failed to delete staged attachment {}: {}", staged, e.getMessage());
+        }
+    }
+
+    private record DeferredCompletion(UUID conversationId, AttachmentStatus status) {
+    }
+}
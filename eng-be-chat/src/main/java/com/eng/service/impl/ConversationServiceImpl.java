@@ -1,37 +1,40 @@
 package com.eng.service.impl;
 
-import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.ObjectUtils;
 
 import com.eng.entities.Conversation;
 import com.eng.entities.ConversationParticipant;
 import com.eng.entities.FriendRequest;
-import com.eng.entities.Message;
 import com.eng.feignClient.UserServiceClient;
 import com.eng.mappers.ConversationMapper;
 import com.eng.models.request.CommonPageInfo;
 import com.eng.models.response.ConversationResponse;
+import com.eng.models.response.InboxResponse;
 import com.eng.models.response.PageResponse;
 import com.eng.models.response.UserRelationshipResponse;
 import com.eng.models.response.UserResponse;
 import com.eng.repositories.ConversationParticipantRepository;
 import com.eng.repositories.ConversationRepository;
 import com.eng.repositories.FriendRequestRepository;
-import com.eng.repositories.MessageRepository;
 import com.eng.service.ConversationService;
+import com.eng.service.ParticipantCacheService;
+import com.eng.service.ShardService;
+import com.eng.service.UnreadCounterService;
 import com.eng.service.UserStatusService;
 import com.eng.utils.SecurityUtil;
 import com.eng.validators.ConversationValidator;
 
 import jakarta.persistence.EntityManager;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -39,7 +42,6 @@ import lombok.RequiredArgsConstructor;
 public class ConversationServiceImpl implements ConversationService {
 
     private final ConversationRepository conversationRepository;
-    private final MessageRepository messageRepository;
     private final ConversationMapper conversationMapper;
     private final ConversationValidator conversationValidator;
     private final UserServiceClient userServiceClient;
@@ -48,8 +50,12 @@ public class ConversationServiceImpl implements ConversationService {
     private final FriendRequestRepository friendRequestRepository;
 
     private final UserStatusService userStatusService;
+    private final ParticipantCacheService participantCacheService;
+    private final ShardService shardService;
+    private final UnreadCounterService unreadCounterService;
 
     @Override
+    @Transactional(readOnly = true)
     public PageResponse<UserRelationshipResponse> getAllUserRelationConversations(Integer page, Integer size, String username) {
         UUID currentUserId = SecurityUtil.getIDUser();
         PageResponse<UserRelationshipResponse> response = new PageResponse<>();
@@ -67,16 +73,7 @@ public class ConversationServiceImpl implements ConversationService {
         List<FriendRequest> friendRequests = friendRequestRepository.findAllRequests(currentUserId);
 
         // Get all conversations for current user
-        List<Conversation> conversations = conversationRepository.findByParticipantsUserId(currentUserId);
-        Map<UUID, UUID> conversationMap = conversations.stream()
-                .flatMap(conv -> conv.getParticipants().stream()
-                        .filter(p -> !p.getUserId().equals(currentUserId))
-                        .map(p -> new AbstractMap.SimpleEntry<>(p.getUserId(), conv.getId())))
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (existing, replacement) -> existing
-                ));
+        Map<UUID, UUID> conversationMap = findConversationIdsByPeer(currentUserId);
 
         // Map to response
         List<UserRelationshipResponse> userResponses = userPage.getData().stream()
@@ -117,6 +114,7 @@ public class ConversationServiceImpl implements ConversationService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PageResponse<UserRelationshipResponse> loadFriendConversation(Integer page, Integer size, String username) {
         UUID currentUserId = SecurityUtil.getIDUser();
         PageResponse<UserRelationshipResponse> response = new PageResponse<>();
@@ -147,16 +145,7 @@ public class ConversationServiceImpl implements ConversationService {
         );
 
         // Get all conversations for current user
-        List<Conversation> conversations = conversationRepository.findByParticipantsUserId(currentUserId);
-        Map<UUID, UUID> conversationMap = conversations.stream()
-                .flatMap(conv -> conv.getParticipants().stream()
-                        .filter(p -> !p.getUserId().equals(currentUserId))
-                        .map(p -> new AbstractMap.SimpleEntry<>(p.getUserId(), conv.getId())))
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (existing, replacement) -> existing
-                ));
+        Map<UUID, UUID> conversationMap = findConversationIdsByPeer(currentUserId);
 
         // Map to response, only including friends
         List<UserRelationshipResponse> userResponses = userPage.getData().stream()
@@ -184,16 +173,30 @@ public class ConversationServiceImpl implements ConversationService {
         return response;
     }
 
+    /**
+     * Conversation id per other participant, collected from every shard.
+     */
+    private Map<UUID, UUID> findConversationIdsByPeer(UUID currentUserId) {
+        return shardService.onEveryShard(() -> conversationParticipantRepository.findPeerIdsByUserId(currentUserId))
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toMap(
+                        row -> (UUID) row[1],
+                        row -> (UUID) row[0],
+                        (existing, replacement) -> existing
+                ));
+    }
+
     @Override
     public List<UserRelationshipResponse> loadFriendConversationById(UUID conversationId) {
-        PageResponse<UserRelationshipResponse> response = new PageResponse<>();
+        // Participant ids come from the cache, the conversation graph is not loaded
+        List<UUID> participantIds = participantCacheService.getParticipantIds(conversationId);
+        conversationValidator.validateParticipantIds(participantIds);
 
-        // Get all conversations for current user
-        Conversation conversations = conversationRepository.findById(conversationId).orElse(null);
-
-        List<UUID> userId = conversations.getParticipants().stream()
-                .filter(t -> !t.getUserId().equals(SecurityUtil.getIDUser()))
-                .toList().stream().map(ConversationParticipant::getUserId).toList();
+        UUID currentUserId = SecurityUtil.getIDUser();
+        List<UUID> userId = participantIds.stream()
+                .filter(participantId -> !participantId.equals(currentUserId))
+                .toList();
 
         List<UserResponse> resultFetchUser = userServiceClient.getUsersByUUID(userId);
 
@@ -212,15 +215,24 @@ public class ConversationServiceImpl implements ConversationService {
         }).collect(Collectors.toList());
     }
 
+    /**
+     * Runs in its own transaction: the new conversation's shard is only known once its id is generated, and
+     * a caller's transaction may already hold a connection to another shard.
+     */
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public ConversationResponse createPrivateConversation(UUID userId2) {
         UUID currentUserId = SecurityUtil.getIDUser();
 
         // Check if private conversation already exists
-        Conversation existingConversation = conversationRepository.findPrivateConversation(currentUserId, userId2);
-        if (existingConversation != null) {
-            return conversationMapper.toResponse(existingConversation);
+        Optional<ConversationResponse> existingConversation = shardService.onEveryShard(() ->
+                        Optional.ofNullable(conversationRepository.findPrivateConversation(currentUserId, userId2))
+                                .map(conversationMapper::toResponse))
+                .stream()
+                .flatMap(Optional::stream)
+                .findFirst();
+        if (existingConversation.isPresent()) {
+            return existingConversation.get();
         }
 
         // Create conversation
@@ -228,33 +240,36 @@ public class ConversationServiceImpl implements ConversationService {
         conversation.setGroup(false);
         conversation.setCreatedBy(currentUserId);
 
-        // Save conversation first to get ID
-        conversation = conversationRepository.save(conversation);
-        entityManager.flush(); // Ensure conversation is persisted and has ID
+        // Persisting generates the ID without writing, the rows are written on the shard placed for it
+        Conversation created = conversationRepository.save(conversation);
+        return shardService.onShard(shardService.place(created.getId()), () -> {
+            entityManager.flush(); // Ensure conversation is persisted and has ID
 
-        // Create participants
-        List<ConversationParticipant> participants = new ArrayList<>();
+            // Create participants
+            List<ConversationParticipant> participants = new ArrayList<>();
 
-        // Add current user
-        ConversationParticipant participant1 = new ConversationParticipant();
-        participant1.setUserId(currentUserId);
-        participant1.setConversationId(conversation.getId());
-        participants.add(participant1);
+            // Add current user
+            ConversationParticipant participant1 = new ConversationParticipant();
+            participant1.setUserId(currentUserId);
+            participant1.setConversationId(created.getId());
+            participants.add(participant1);
 
-        // Add other user
-        ConversationParticipant participant2 = new ConversationParticipant();
-        participant2.setUserId(userId2);
-        participant2.setConversationId(conversation.getId());
-        participants.add(participant2);
+            // Add other user
+            ConversationParticipant participant2 = new ConversationParticipant();
+            participant2.setUserId(userId2);
+            participant2.setConversationId(created.getId());
+            participants.add(participant2);
 
-        // Save participants
-        conversationParticipantRepository.saveAll(participants);
+            // Save participants
+            conversationParticipantRepository.saveAll(participants);
+            participantCacheService.put(created.getId(), participants.stream().map(ConversationParticipant::getUserId).toList());
 
-        return conversationMapper.toResponse(conversation);
+            return conversationMapper.toResponse(created);
+        });
     }
 
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public ConversationResponse createGroupConversation(String name, List<UUID> participantIds) {
         UUID currentUserId = SecurityUtil.getIDUser();
 
@@ -264,51 +279,60 @@ public class ConversationServiceImpl implements ConversationService {
         conversation.setGroup(true);
         conversation.setCreatedBy(currentUserId);
 
-        // Save conversation first to get ID
-        conversation = conversationRepository.save(conversation);
-        entityManager.flush(); // Ensure conversation is persisted and has ID
-
-        // Create participants list
-        List<ConversationParticipant> participants = new ArrayList<>();
-
-        // Add current user
-        ConversationParticipant currentUserParticipant = new ConversationParticipant();
-        currentUserParticipant.setUserId(currentUserId);
-        currentUserParticipant.setConversationId(conversation.getId());
-        participants.add(currentUserParticipant);
-
-        // Add other participants
-        for (UUID participantId : participantIds) {
-            if (!participantId.equals(currentUserId)) {
-                ConversationParticipant participant = new ConversationParticipant();
-                participant.setUserId(participantId);
-                participant.setConversationId(conversation.getId());
-                participants.add(participant);
+        // Persisting generates the ID without writing, the rows are written on the shard placed for it
+        Conversation created = conversationRepository.save(conversation);
+        return shardService.onShard(shardService.place(created.getId()), () -> {
+            entityManager.flush(); // Ensure conversation is persisted and has ID
+
+            // Create participants list
+            List<ConversationParticipant> participants = new ArrayList<>();
+
+            // Add current user
+            ConversationParticipant currentUserParticipant = new ConversationParticipant();
+            currentUserParticipant.setUserId(currentUserId);
+            currentUserParticipant.setConversationId(created.getId());
+            participants.add(currentUserParticipant);
+
+            // Add other participants
+            for (UUID participantId : participantIds) {
+                if (!participantId.equals(currentUserId)) {
+                    ConversationParticipant participant = new ConversationParticipant();
+                    participant.setUserId(participantId);
+                    participant.setConversationId(created.getId());
+                    participants.add(participant);
+                }
             }
-        }
 
-        // Save participants
-        conversationParticipantRepository.saveAll(participants);
+            // Save participants
+            conversationParticipantRepository.saveAll(participants);
+            participantCacheService.put(created.getId(), participants.stream().map(ConversationParticipant::getUserId).toList());
 
-        return conversationMapper.toResponse(conversation);
+            return conversationMapper.toResponse(created);
+        });
     }
 
     @Override
-    @Transactional
-    public void updateLastMessage(UUID conversationId, UUID messageId) {
-        conversationValidator.validateUpdateLastMessage(conversationId, messageId);
+    public Conversation getConversation(UUID conversationId) {
+        return shardService.onConversation(conversationId, () -> conversationValidator.validateConversationId(conversationId));
+    }
 
-        Message message = messageRepository.findById(messageId).orElseThrow();
-        Conversation conversation = conversationRepository.findById(conversationId).orElseThrow();
+    @Override
+    public Conversation getConversationReference(UUID conversationId) {
+        return conversationRepository.getReferenceById(conversationId);
+    }
 
-        conversation.setLastMessageId(messageId);
-        conversation.setLastMessageAt(message.getCreatedAt().toInstant());
-        conversationRepository.save(conversation);
+    @Override
+    public List<UUID> getParticipantIds(UUID conversationId) {
+        return participantCacheService.getParticipantIds(conversationId);
     }
 
     @Override
-    public Conversation getConversation(UUID conversationId) {
-        return conversationValidator.validateConversationId(conversationId);
+    public InboxResponse getInbox() {
+        Map<UUID, Long> unreadCounts = unreadCounterService.getUnreadCounts(SecurityUtil.getIDUser());
+        return InboxResponse.builder()
+                .unreadCounts(unreadCounts)
+                .totalUnread(unreadCounts.values().stream().mapToLong(Long::longValue).sum())
+                .build();
     }
 
     @Override
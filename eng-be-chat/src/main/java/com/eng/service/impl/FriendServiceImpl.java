@@ -7,6 +7,7 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.ObjectUtils;
 
 import com.eng.entities.FriendRequest;
@@ -21,7 +22,6 @@ import com.eng.service.FriendService;
 import com.eng.utils.SecurityUtil;
 import com.eng.validators.FriendValidator;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -91,6 +91,7 @@ public class FriendServiceImpl implements FriendService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<FriendRequestResponse> getPendingRequests() {
         UUID currentUserId = SecurityUtil.getIDUser();
         List<FriendRequest> requests = friendRequestRepository.findPendingRequests(currentUserId);
@@ -114,6 +115,7 @@ public class FriendServiceImpl implements FriendService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PageResponse<FriendResponse> getFriends(Integer page, Integer size, String userName) {
         UUID currentUserId = SecurityUtil.getIDUser();
         List<FriendRequest> acceptedRequests = friendRequestRepository.findAllRequests(currentUserId).stream()
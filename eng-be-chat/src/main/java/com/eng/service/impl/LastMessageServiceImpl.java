@@ -0,0 +1,176 @@
+package com.eng.service.impl;
+
+import com.eng.entities.TimeOrderedUuidGenerator;
+import com.eng.repositories.ConversationRepository;
+import com.eng.repositories.MessageRepository;
+import com.eng.service.LastMessageService;
+import com.eng.service.ShardService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps conversation.last_message_id off the send transaction.
+ * <p>
+ * Committed sends only record the newest message per conversation in memory; a flush every
+ * {@code flush-interval-ms} writes one conditional UPDATE per touched conversation. Busy groups therefore update
+ * their conversation row once per flush interval instead of once per message, and the row lock is never held by a
+ * send. Conversations being moved to another shard stay pending until the move finished, so no update lands on the
+ * old shard. The flush has its own thread so the slower scheduled jobs never delay it.
+ * <p>
+ * Updates still pending when an instance dies are lost. On startup the newest message of every conversation written
+ * to in the last {@code recovery-window-minutes} is offered again, found by a range scan over the time-ordered
+ * message ids; a conversation left behind longer than that is corrected by its next message.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LastMessageServiceImpl implements LastMessageService {
+    private static final int RECOVERY_PAGE_SIZE = 500;
+
+    private final ConversationRepository conversationRepository;
+    private final MessageRepository messageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardService shardService;
+
+    @Value("${custom.chat.last-message.flush-interval-ms:50}")
+    private long flushIntervalMillis;
+
+    @Value("${custom.chat.last-message.recovery-window-minutes:10}")
+    private long recoveryWindowMinutes;
+
+    private final Map<UUID, PendingLastMessage> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "chat-last-message-flush"));
+
+    @PostConstruct
+    void start() {
+        flushExecutor.execute(this::recover);
+        flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // A task that throws is never run again
+                log.error("Last message flush failed: {}", e.getMessage(), e);
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void offer(UUID conversationId, UUID messageId, Date createdAt) {
+        PendingLastMessage lastMessage = new PendingLastMessage(messageId, createdAt);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            merge(conversationId, lastMessage);
+            return;
+        }
+
+        // Only committed messages may become the last message of a conversation
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                merge(conversationId, lastMessage);
+            }
+        });
+    }
+
+    @Override
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Each conversation is updated in its own transaction, no flush holds more than one row lock
+        for (UUID conversationId : new ArrayList<>(pending.keySet())) {
+            PendingLastMessage lastMessage = pending.remove(conversationId);
+            if (lastMessage == null) {
+                continue;
+            }
+            if (shardService.isMoving(conversationId)) {
+                merge(conversationId, lastMessage);
+                continue;
+            }
+            try {
+                shardService.runOnConversation(conversationId, () -> transactionTemplate.executeWithoutResult(status ->
+                        conversationRepository.updateLastMessage(conversationId, lastMessage.messageId(), lastMessage.createdAt().toInstant())));
+            } catch (Exception e) {
+                log.warn("Failed to update last message of conversation {}, retrying on next flush: {}",
+                        conversationId, e.getMessage());
+                merge(conversationId, lastMessage);
+            }
+        }
+    }
+
+    /**
+     * Offers the newest message of each conversation written to within the recovery window again.
+     */
+    void recover() {
+        long now = System.currentTimeMillis();
+        UUID beforeId = TimeOrderedUuidGenerator.firstOf(now);
+        int recovered = 0;
+        try {
+            for (int shard = 0; shard < shardService.shardCount(); shard++) {
+                UUID afterId = TimeOrderedUuidGenerator.firstOf(now - TimeUnit.MINUTES.toMillis(recoveryWindowMinutes));
+                List<Object[]> page;
+                do {
+                    UUID after = afterId;
+                    page = shardService.onShard(shard, () ->
+                            messageRepository.findIdRange(after, beforeId, PageRequest.of(0, RECOVERY_PAGE_SIZE)));
+                    for (Object[] row : page) {
+                        merge((UUID) row[0], new PendingLastMessage((UUID) row[1], (Date) row[2]));
+                        afterId = (UUID) row[1];
+                    }
+                    recovered += page.size();
+                } while (page.size() == RECOVERY_PAGE_SIZE);
+            }
+            log.info("Rechecking the last message of {} conversations after {} recent messages", pending.size(), recovered);
+        } catch (RuntimeException e) {
+            log.error("Last message recovery stopped after {} messages: {}", recovered, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushExecutor.shutdownNow();
+        flush();
+    }
+
+    private void merge(UUID conversationId, PendingLastMessage lastMessage) {
+        pending.merge(conversationId, lastMessage, (current, offered) -> offered.isNewerThan(current) ? offered : current);
+    }
+
+    private record PendingLastMessage(UUID messageId, Date createdAt) {
+
+        /**
+         * Same order as the conditional UPDATE: creation time, then the id as MySQL compares binary(16),
+         * byte by byte and unsigned.
+         */
+        boolean isNewerThan(PendingLastMessage other) {
+            int compare = createdAt.compareTo(other.createdAt);
+            if (compare != 0) {
+                return compare > 0;
+            }
+            compare = Long.compareUnsigned(messageId.getMostSignificantBits(), other.messageId.getMostSignificantBits());
+            if (compare == 0) {
+                compare = Long.compareUnsigned(messageId.getLeastSignificantBits(), other.messageId.getLeastSignificantBits());
+            }
+            return compare > 0;
+        }
+    }
+}
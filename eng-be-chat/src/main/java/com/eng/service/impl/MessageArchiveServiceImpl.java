@@ -0,0 +1,248 @@
+package com.eng.service.impl;
+
+import com.eng.models.response.MessageResponse;
+import com.eng.models.response.SliceResponse;
+import com.eng.repositories.ArchivedMessageRepository;
+import com.eng.repositories.MessageReactionRepository;
+import com.eng.repositories.MessageRepository;
+import com.eng.repositories.MessageStatusRepository;
+import com.eng.service.MessageArchiveService;
+import com.eng.service.ShardService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.eng.repositories.ArchivedMessageRepository.ARCHIVED_MESSAGE_RESPONSE;
+
+/**
+ * Keeps the hot message table small by moving cold rows into the compressed message_archive table.
+ * <p>
+ * The archiver runs on every instance; each batch locks its rows with SKIP LOCKED, copies them with
+ * INSERT ... SELECT and deletes them in the same transaction, so a message is always in exactly one table. Its
+ * statuses and reaction counts move along into message_status_archive and message_reaction_archive, where they
+ * no longer change: receipts and reactions on archived messages are refused. A message qualifies once it has not
+ * been touched for {@code age-days}, or {@code deleted-grace-days} after it was soft-deleted; messages of
+ * conversations being moved to another shard wait for the next pass. Reads stay on the hot table and continue
+ * into the archive only when a page reaches past the hot window: archived messages are older than the archive
+ * cutoff, so a full hot page whose oldest message is newer than the cutoff never needs the archive.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageArchiveServiceImpl implements MessageArchiveService {
+    private static final Comparator<MessageResponse> OLDEST_FIRST = Comparator
+            .comparing(MessageResponse::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(MessageResponse::getId);
+
+    private final MessageRepository messageRepository;
+    private final MessageStatusRepository messageStatusRepository;
+    private final MessageReactionRepository messageReactionRepository;
+    private final ArchivedMessageRepository archivedMessageRepository;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final ShardService shardService;
+
+    @Value("${custom.chat.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${custom.chat.archive.age-days:365}")
+    private long ageDays;
+
+    @Value("${custom.chat.archive.deleted-grace-days:30}")
+    private long deletedGraceDays;
+
+    @Value("${custom.chat.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${custom.chat.archive.max-batches:100}")
+    private int maxBatches;
+
+    @Value("${custom.chat.archive.count-ttl-seconds:300}")
+    private long countTtlSeconds;
+
+    private TransactionTemplate transactionTemplate;
+    private Cache<UUID, Long> archivedCounts;
+    private Counter archivedMessages;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        archivedCounts = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofSeconds(countTtlSeconds))
+                .build();
+        archivedMessages = Counter.builder("chat.archive.messages")
+                .description("Messages moved from the hot message table into message_archive")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${custom.chat.archive.interval-ms:60000}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+
+        // Every shard archives its own conversations into its own message_archive
+        for (int shard = 0; shard < shardService.shardCount(); shard++) {
+            try {
+                shardService.onShard(shard, () -> {
+                    int batches = 0;
+                    Integer moved;
+                    do {
+                        moved = transactionTemplate.execute(status -> archiveBatch());
+                    } while (moved != null && moved == batchSize && ++batches < maxBatches);
+                    return batches;
+                });
+            } catch (Exception e) {
+                log.error("Message archiving failed on shard {}, remaining messages are retried on the next pass: {}",
+                        shard, e.getMessage(), e);
+            }
+        }
+    }
+
+    private int archiveBatch() {
+        Instant now = Instant.now();
+        List<Object[]> rows = messageRepository.lockArchivable(
+                Date.from(now.minus(Duration.ofDays(ageDays))),
+                Date.from(now.minus(Duration.ofDays(deletedGraceDays))),
+                batchSize);
+
+        // The rebalancer copies a conversation and then deletes it here, a later change would be lost
+        Map<String, Boolean> moving = new HashMap<>();
+        List<byte[]> ids = rows.stream()
+                .filter(row -> !moving.computeIfAbsent((String) row[1], id -> shardService.isMoving(UUID.fromString(id))))
+                .map(row -> (byte[]) row[0])
+                .toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // Receipts, reactions and counts move with their messages instead of going with the delete's cascade
+        messageRepository.copyToArchive(ids);
+        messageStatusRepository.copyToArchive(ids);
+        messageReactionRepository.copyToArchive(ids);
+        messageStatusRepository.deleteArchived(ids);
+        messageReactionRepository.deleteArchived(ids);
+        messageRepository.deleteArchived(ids);
+        archivedMessages.increment(ids.size());
+        return ids.size();
+    }
+
+    @Override
+    public long countArchived(UUID conversationId) {
+        return archivedCounts.get(conversationId, id -> shardService.onConversation(id,
+                () -> archivedMessageRepository.countByConversationIdAndDeletedFalse(id)));
+    }
+
+    @Override
+    public List<MessageResponse> readPage(UUID conversationId, Page<MessageResponse> hot, Pageable pageable) {
+        int missing = pageable.getPageSize() - hot.getNumberOfElements();
+        if (missing <= 0 || countArchived(conversationId) == 0) {
+            return hot.getContent();
+        }
+
+        // Hot messages fill the first pages, the archive continues where they end
+        long archiveOffset = Math.max(0, pageable.getOffset() - hot.getTotalElements());
+        List<MessageResponse> archived = entityManager.createQuery(ARCHIVED_MESSAGE_RESPONSE +
+                        "FROM ArchivedMessage a WHERE a.conversationId = :conversationId AND a.deleted = false " +
+                        "ORDER BY a.createdAt DESC, a.id DESC", MessageResponse.class)
+                .setParameter("conversationId", conversationId)
+                .setFirstResult(Math.toIntExact(archiveOffset))
+                .setMaxResults(missing)
+                .getResultList();
+
+        List<MessageResponse> content = new ArrayList<>(hot.getContent());
+        content.addAll(archived);
+        return content;
+    }
+
+    @Override
+    public SliceResponse<MessageResponse> readBefore(UUID conversationId, Slice<MessageResponse> hot,
+                                                     Date createdAt, UUID messageId, int size) {
+        List<MessageResponse> content = hot.getContent();
+        boolean hotReachesCutoff = !hot.hasNext()
+                || content.get(content.size() - 1).getCreatedAt().before(archiveCutoff());
+        if (!hotReachesCutoff || countArchived(conversationId) == 0) {
+            return toResponse(content, hot.hasNext());
+        }
+
+        Pageable limit = PageRequest.of(0, size);
+        Slice<MessageResponse> archived = createdAt == null
+                ? archivedMessageRepository.findLatest(conversationId, limit)
+                : archivedMessageRepository.findBefore(conversationId, createdAt, messageId, limit);
+        return merge(hot, archived, OLDEST_FIRST.reversed(), size);
+    }
+
+    @Override
+    public SliceResponse<MessageResponse> readAfter(UUID conversationId, Slice<MessageResponse> hot,
+                                                    Date createdAt, UUID messageId, int size) {
+        // Nothing newer than the cutoff is ever archived
+        if (!createdAt.before(archiveCutoff()) || countArchived(conversationId) == 0) {
+            return toResponse(hot.getContent(), hot.hasNext());
+        }
+
+        Slice<MessageResponse> archived = archivedMessageRepository.findAfter(conversationId, createdAt, messageId,
+                PageRequest.of(0, size));
+        return merge(hot, archived, OLDEST_FIRST, size);
+    }
+
+    @Override
+    public Optional<Date> findCreatedAt(UUID conversationId, UUID messageId) {
+        return archivedMessageRepository.findCreatedAt(conversationId, messageId);
+    }
+
+    @Override
+    public Stream<MessageResponse> streamByConversationId(UUID conversationId) {
+        return archivedMessageRepository.streamByConversationId(conversationId);
+    }
+
+    private Date archiveCutoff() {
+        return Date.from(Instant.now().minus(Duration.ofDays(ageDays)));
+    }
+
+    private SliceResponse<MessageResponse> merge(Slice<MessageResponse> hot, Slice<MessageResponse> archived,
+                                                 Comparator<MessageResponse> order, int size) {
+        List<MessageResponse> merged = new ArrayList<>(hot.getContent());
+        merged.addAll(archived.getContent());
+        merged.sort(order);
+
+        boolean hasNext = merged.size() > size || hot.hasNext() || archived.hasNext();
+        return toResponse(merged.size() > size ? merged.subList(0, size) : merged, hasNext);
+    }
+
+    private SliceResponse<MessageResponse> toResponse(List<MessageResponse> content, boolean hasNext) {
+        SliceResponse<MessageResponse> response = new SliceResponse<>();
+        response.setData(new ArrayList<>(content));
+        response.setSize(content.size());
+        response.setHasNext(hasNext);
+        return response;
+    }
+}
@@ -0,0 +1,150 @@
+package com.eng.service.impl;
+
+import com.eng.constants.ExportFormat;
+import com.eng.models.response.MessageResponse;
+import com.eng.repositories.MessageRepository;
+import com.eng.service.ConversationService;
+import com.eng.service.MessageArchiveService;
+import com.eng.service.MessageExportService;
+import com.eng.service.ShardService;
+import com.eng.utils.SecurityUtil;
+import com.eng.validators.MessageValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Streams a whole conversation as NDJSON or CSV with flat heap use.
+ * <p>
+ * Rows come from a forward-only server-side cursor (useCursorFetch with a fetch size on the query) and are
+ * projected into {@link MessageResponse}, so no entity ever enters the persistence context and each row can
+ * be collected once written. Output is flushed every {@code flush-rows} rows; a client that disconnected
+ * makes the flush fail, which closes the cursor and frees the connection. Each export holds a database
+ * connection for its whole duration, so the number of concurrent exports is capped.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageExportServiceImpl implements MessageExportService {
+    private static final String CSV_HEADER = "id,createdAt,senderId,type,content,edited,editedAt\n";
+
+    private final MessageRepository messageRepository;
+    private final MessageArchiveService messageArchiveService;
+    private final ConversationService conversationService;
+    private final MessageValidator messageValidator;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final ShardService shardService;
+
+    @Value("${custom.chat.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Value("${custom.chat.export.flush-rows:100}")
+    private int flushRows;
+
+    private Semaphore exportPermits;
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        exportPermits = new Semaphore(maxConcurrent);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public StreamingResponseBody exportMessages(UUID conversationId, ExportFormat format) {
+        // Checked on the request thread, the body is written on an async thread without the security context
+        messageValidator.validateParticipant(conversationService.getParticipantIds(conversationId), SecurityUtil.getIDUser());
+        messageValidator.validateExportPermit(exportPermits.tryAcquire());
+
+        return outputStream -> {
+            try {
+                // The body runs on an async thread, so the conversation's shard is selected there
+                shardService.runOnConversation(conversationId, () ->
+                    readOnlyTransaction.executeWithoutResult(status -> {
+                        // Archived messages are the older part of the conversation
+                        try (Stream<MessageResponse> messages = Stream.concat(
+                                messageArchiveService.streamByConversationId(conversationId),
+                                messageRepository.streamByConversationId(conversationId))) {
+                            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                            write(writer, messages, format);
+                            writer.flush();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+            } catch (UncheckedIOException e) {
+                log.info("Export of conversation {} stopped: {}", conversationId, e.getCause().getMessage());
+            } finally {
+                exportPermits.release();
+            }
+        };
+    }
+
+    private void write(Writer writer, Stream<MessageResponse> messages, ExportFormat format) throws IOException {
+        ObjectWriter jsonWriter = objectMapper.writerFor(MessageResponse.class);
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        long written = 0;
+        for (MessageResponse message : (Iterable<MessageResponse>) messages::iterator) {
+            if (format == ExportFormat.CSV) {
+                writeCsv(writer, message);
+            } else {
+                writer.write(jsonWriter.writeValueAsString(message));
+                writer.write('\n');
+            }
+            if (++written % flushRows == 0) {
+                writer.flush();
+            }
+        }
+    }
+
+    private void writeCsv(Writer writer, MessageResponse message) throws IOException {
+        writer.write(message.getId().toString());
+        writer.write(',');
+        writer.write(csvDate(message.getCreatedAt()));
+        writer.write(',');
+        writer.write(message.getSenderId().toString());
+        writer.write(',');
+        writer.write(message.getType() != null ? message.getType().name() : "");
+        writer.write(',');
+        writer.write(csvText(message.getContent()));
+        writer.write(',');
+        writer.write(Boolean.toString(message.isEdited()));
+        writer.write(',');
+        writer.write(csvDate(message.getEditedAt()));
+        writer.write('\n');
+    }
+
+    private String csvDate(Date date) {
+        return date != null ? date.toInstant().toString() : "";
+    }
+
+    private String csvText(String text) {
+        if (text == null) {
+            return "";
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
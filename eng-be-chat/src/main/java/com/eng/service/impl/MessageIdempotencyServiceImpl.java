@@ -0,0 +1,99 @@
+package com.eng.service.impl;
+
+import com.eng.service.MessageIdempotencyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Redis dedupe window for client message ids.
+ * <p>
+ * A send first claims {@code message:client:<sender>:<clientMessageId>} for {@code pending-ttl-seconds}; the key
+ * is replaced by the stored message id for the whole dedupe window when the send commits and removed when it
+ * rolls back. The short claim bounds how long a send that died before either happened blocks its retries. A
+ * retry arriving while the claim is held is answered with a conflict and not made to wait, so no send holds its
+ * transaction open on another. Redis failures are logged and ignored, the unique (sender_id, client_message_id)
+ * index on message is the fallback.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class MessageIdempotencyServiceImpl implements MessageIdempotencyService {
+    private static final String CLIENT_MESSAGE_KEY = "message:client:";
+    private static final String PENDING = "PENDING";
+    private static final Duration DEDUPE_WINDOW = Duration.ofMinutes(10);
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Value("${custom.chat.idempotency.pending-ttl-seconds:30}")
+    private long pendingTtlSeconds;
+
+    @Override
+    public Optional<UUID> findMessageId(UUID senderId, UUID clientMessageId) {
+        try {
+            String value = redisTemplate.opsForValue().get(key(senderId, clientMessageId));
+            return value == null || PENDING.equals(value) ? Optional.empty() : Optional.of(UUID.fromString(value));
+        } catch (DataAccessException e) {
+            log.warn("Dedupe lookup failed for client message {}: {}", clientMessageId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean claim(UUID senderId, UUID clientMessageId) {
+        String key = key(senderId, clientMessageId);
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, PENDING, Duration.ofSeconds(pendingTtlSeconds)))) {
+                return false;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Dedupe claim failed for client message {}: {}", clientMessageId, e.getMessage());
+            return true;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    delete(key);
+                }
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public void remember(UUID senderId, UUID clientMessageId, UUID messageId) {
+        String key = key(senderId, clientMessageId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    redisTemplate.opsForValue().set(key, messageId.toString(), DEDUPE_WINDOW);
+                } catch (DataAccessException e) {
+                    log.warn("Dedupe store failed for client message {}: {}", clientMessageId, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void delete(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (DataAccessException e) {
+            log.warn("Dedupe release failed for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private String key(UUID senderId, UUID clientMessageId) {
+        return CLIENT_MESSAGE_KEY + senderId + ":" + clientMessageId;
+    }
+}
@@ -0,0 +1,338 @@
+package com.eng.service.impl;
+
+import com.eng.models.response.MessageResponse;
+import com.eng.models.response.MessageSearchResponse;
+import com.eng.repositories.ConversationParticipantRepository;
+import com.eng.repositories.MessageRepository;
+import com.eng.service.ConversationService;
+import com.eng.service.MessageSearchService;
+import com.eng.service.ShardService;
+import com.eng.utils.SecurityUtil;
+import com.eng.validators.MessageValidator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Embedded Lucene index over message content.
+ * <p>
+ * Sends, edits and deletes update the index after their transaction commits and a near-real-time searcher
+ * is refreshed every {@code refresh-interval-ms}. Because every instance keeps its own index, a catch-up job
+ * also replays message changes by updated_at from a checkpoint stored in the Lucene commit, which picks up
+ * writes handled by other instances and survives restarts. An index without a checkpoint is rebuilt from
+ * the database in id-ordered chunks on a background thread. Searches are always filtered to conversations
+ * the caller participates in.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageSearchServiceImpl implements MessageSearchService {
+    private static final String ID = "id";
+    private static final String CONVERSATION_ID = "conversationId";
+    private static final String SENDER_ID = "senderId";
+    private static final String CONTENT = "content";
+    private static final String CREATED_AT = "createdAt";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final long SECOND = 1000L;
+
+    private final MessageRepository messageRepository;
+    private final ConversationParticipantRepository conversationParticipantRepository;
+    private final ConversationService conversationService;
+    private final MessageValidator messageValidator;
+    private final ShardService shardService;
+
+    @Value("${custom.chat.search.index-path:${java.io.tmpdir}/chat-search-index}")
+    private String indexPath;
+
+    @Value("${custom.chat.search.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${custom.chat.search.max-size:50}")
+    private int maxSize;
+
+    @Value("${custom.chat.search.safety-lag-ms:5000}")
+    private long safetyLagMillis;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "chat-search-rebuild"));
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+    private volatile long checkpoint;
+
+    @PostConstruct
+    void open() throws IOException {
+        indexWriter = new IndexWriter(FSDirectory.open(Path.of(indexPath)), new IndexWriterConfig(analyzer));
+        searcherManager = new SearcherManager(indexWriter, null);
+
+        String stored = null;
+        if (indexWriter.getLiveCommitData() != null) {
+            for (Map.Entry<String, String> entry : indexWriter.getLiveCommitData()) {
+                if (CHECKPOINT.equals(entry.getKey())) {
+                    stored = entry.getValue();
+                }
+            }
+        }
+        if (stored == null) {
+            rebuildExecutor.execute(this::rebuild);
+        } else {
+            checkpoint = Long.parseLong(stored);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        rebuildExecutor.shutdownNow();
+        searcherManager.close();
+        indexWriter.close();
+    }
+
+    @Override
+    public List<MessageSearchResponse> search(String query, UUID conversationId, Integer size) {
+        messageValidator.validateSearch(query, size);
+        UUID currentUserId = SecurityUtil.getIDUser();
+
+        Collection<UUID> conversationIds;
+        if (conversationId != null) {
+            messageValidator.validateParticipant(conversationService.getParticipantIds(conversationId), currentUserId);
+            conversationIds = List.of(conversationId);
+        } else {
+            // Conversations of one user are spread over every shard
+            conversationIds = shardService.onEveryShard(() -> conversationParticipantRepository.findConversationIdsByUserId(currentUserId))
+                    .stream()
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toSet());
+        }
+
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        List<String> terms = analyze(query);
+        if (terms.isEmpty() || conversationIds.isEmpty()) {
+            return List.of();
+        }
+        for (int i = 0; i < terms.size(); i++) {
+            Term term = new Term(CONTENT, terms.get(i));
+            // The last word may still be typed, so it matches as a prefix
+            builder.add(i == terms.size() - 1 ? new PrefixQuery(term) : new TermQuery(term), BooleanClause.Occur.MUST);
+        }
+        builder.add(new TermInSetQuery(CONVERSATION_ID, conversationIds.stream().map(id -> new BytesRef(id.toString())).toList()),
+                BooleanClause.Occur.FILTER);
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(builder.build(), Math.min(size, maxSize));
+                StoredFields storedFields = searcher.storedFields();
+                List<MessageSearchResponse> hits = new ArrayList<>(topDocs.scoreDocs.length);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    Document document = storedFields.document(scoreDoc.doc);
+                    hits.add(new MessageSearchResponse(
+                            UUID.fromString(document.get(ID)),
+                            UUID.fromString(document.get(CONVERSATION_ID)),
+                            UUID.fromString(document.get(SENDER_ID)),
+                            document.get(CONTENT),
+                            new Date(document.getField(CREATED_AT).numericValue().longValue()),
+                            scoreDoc.score));
+                }
+                return hits;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void index(MessageResponse message) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(message);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(message);
+            }
+        });
+    }
+
+    @Override
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Changes made while the table is streamed are replayed by the catch-up from this point
+            long startedAt = System.currentTimeMillis() - safetyLagMillis;
+            indexWriter.deleteAll();
+
+            long indexed = 0;
+            for (int shard = 0; shard < shardService.shardCount(); shard++) {
+                indexed += shardService.onShard(shard, this::indexShard);
+            }
+
+            commit(startedAt);
+            searcherManager.maybeRefresh();
+            log.info("Message search index rebuilt with {} messages", indexed);
+        } catch (Exception e) {
+            log.error("Message search index rebuild failed: {}", e.getMessage(), e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private long indexShard() {
+        long indexed = 0;
+        try {
+            Slice<MessageResponse> chunk = messageRepository.findFirstChunk(PageRequest.of(0, chunkSize));
+            while (true) {
+                for (MessageResponse message : chunk.getContent()) {
+                    indexWriter.addDocument(toDocument(message));
+                }
+                indexed += chunk.getNumberOfElements();
+                if (!chunk.hasNext()) {
+                    return indexed;
+                }
+                UUID lastId = chunk.getContent().get(chunk.getNumberOfElements() - 1).getId();
+                chunk = messageRepository.findChunkAfter(lastId, PageRequest.of(0, chunkSize));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${custom.chat.search.refresh-interval-ms:500}")
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.warn("Message search refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${custom.chat.search.catch-up-interval-ms:5000}")
+    public void catchUp() {
+        if (rebuilding.get() || checkpoint == 0) {
+            return;
+        }
+        try {
+            long next = System.currentTimeMillis() - safetyLagMillis;
+            // updated_at has second precision, so replay starts at the whole second of the checkpoint
+            Date from = new Date(checkpoint / SECOND * SECOND);
+            boolean changed = false;
+            for (int shard = 0; shard < shardService.shardCount(); shard++) {
+                Slice<MessageResponse> changes = shardService.onShard(shard,
+                        () -> messageRepository.findChangedSince(from, PageRequest.of(0, chunkSize)));
+                changes.getContent().forEach(this::apply);
+                changed |= changes.hasContent();
+                // The checkpoint is shared, so it stops where the furthest behind shard was cut
+                if (changes.hasNext()) {
+                    long last = changes.getContent().get(changes.getNumberOfElements() - 1).getUpdatedAt().getTime();
+                    next = Math.min(next, last > from.getTime() ? last : from.getTime() + SECOND);
+                }
+            }
+            if (!changed) {
+                // Nothing to write, the stored checkpoint only lags behind and replays nothing on restart
+                checkpoint = Math.max(next, checkpoint);
+                return;
+            }
+            commit(Math.max(next, checkpoint));
+        } catch (Exception e) {
+            log.error("Message search catch-up failed, retried on the next pass: {}", e.getMessage(), e);
+        }
+    }
+
+    private void apply(MessageResponse message) {
+        try {
+            Term id = new Term(ID, message.getId().toString());
+            if (message.isDeleted()) {
+                indexWriter.deleteDocuments(id);
+            } else {
+                indexWriter.updateDocument(id, toDocument(message));
+            }
+        } catch (IOException e) {
+            log.warn("Failed to index message {}, the catch-up retries it: {}", message.getId(), e.getMessage());
+        }
+    }
+
+    private Document toDocument(MessageResponse message) {
+        Document document = new Document();
+        document.add(new StringField(ID, message.getId().toString(), Field.Store.YES));
+        document.add(new StringField(CONVERSATION_ID, message.getConversationId().toString(), Field.Store.YES));
+        document.add(new StoredField(SENDER_ID, message.getSenderId().toString()));
+        document.add(new TextField(CONTENT, message.getContent() != null ? message.getContent() : "", Field.Store.YES));
+        document.add(new StoredField(CREATED_AT, message.getCreatedAt() != null ? message.getCreatedAt().getTime() : 0L));
+        return document;
+    }
+
+    private void commit(long syncedUpTo) throws IOException {
+        indexWriter.setLiveCommitData(Map.of(CHECKPOINT, Long.toString(syncedUpTo)).entrySet());
+        indexWriter.commit();
+        checkpoint = syncedUpTo;
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream tokenStream = analyzer.tokenStream(CONTENT, text)) {
+            CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            tokenStream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+}
@@ -1,38 +1,59 @@
 package com.eng.service.impl;
 
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
-import org.springframework.util.ObjectUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.eng.constants.MessageStatusType;
-import com.eng.entities.ConversationParticipant;
+import com.eng.constants.ReceiptMode;
 import com.eng.entities.Message;
-import com.eng.entities.MessageStatus;
 import com.eng.mappers.MessageMapper;
+import com.eng.models.request.MessageAckRequest;
 import com.eng.models.request.MessageRequest;
+import com.eng.models.response.MessageReceiptResponse;
 import com.eng.models.response.MessageResponse;
 import com.eng.models.response.PageResponse;
+import com.eng.models.response.SliceResponse;
+import com.eng.repositories.ConversationParticipantRepository;
 import com.eng.repositories.MessageRepository;
 import com.eng.repositories.MessageStatusRepository;
+import com.eng.service.AttachmentService;
 import com.eng.service.ConversationService;
+import com.eng.service.LastMessageService;
+import com.eng.service.MessageArchiveService;
+import com.eng.service.MessageIdempotencyService;
+import com.eng.service.MessageSearchService;
 import com.eng.service.MessageService;
+import com.eng.service.ReactionSummaryService;
+import com.eng.service.RecentMessageCacheService;
+import com.eng.service.ShardService;
+import com.eng.service.UnreadCounterService;
 import com.eng.service.WebSocketService;
 import com.eng.utils.SecurityUtil;
 import com.eng.validators.MessageValidator;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class MessageServiceImpl implements MessageService {
+    private static final String CLIENT_MESSAGE_ID_CONSTRAINT = "uk_message_sender_client_message_id";
 
     private final MessageRepository messageRepository;
     private final MessageStatusRepository messageStatusRepository;
@@ -40,184 +61,455 @@ public class MessageServiceImpl implements MessageService {
     private final MessageValidator messageValidator;
     private final MessageMapper messageMapper;
     private final WebSocketService webSocketService;
+    private final ConversationParticipantRepository conversationParticipantRepository;
+    private final MessageIdempotencyService messageIdempotencyService;
+    private final LastMessageService lastMessageService;
+    private final AttachmentService attachmentService;
+    private final RecentMessageCacheService recentMessageCacheService;
+    private final MessageSearchService messageSearchService;
+    private final MessageArchiveService messageArchiveService;
+    private final ShardService shardService;
+    private final UnreadCounterService unreadCounterService;
+    private final ReactionSummaryService reactionSummaryService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${custom.chat.receipt-mode:ROWS}")
+    private ReceiptMode receiptMode;
+
+    @Value("${custom.chat.history.max-size:100}")
+    private int historyMaxSize;
+
+    @Value("${custom.chat.ack.max-batch-size:500}")
+    private int ackMaxBatchSize;
 
     @Override
+    @Transactional(readOnly = true)
     public PageResponse<MessageResponse> getMessages(UUID conversationId, Pageable pageable) {
-        PageResponse<MessageResponse> response = new PageResponse<>();
+        return shardService.onConversation(conversationId, () -> {
+            PageResponse<MessageResponse> response = new PageResponse<>();
+
+            UUID currentUserId = SecurityUtil.getIDUser();
+            messageValidator.validateParticipant(conversationService.getParticipantIds(conversationId), currentUserId);
+
+            // Opening a chat reads the first page, which the recent-message buffer answers without MySQL
+            if (pageable.getPageNumber() == 0) {
+                Optional<RecentMessageCacheService.RecentMessages> recent = recentMessageCacheService.getLatest(conversationId, pageable.getPageSize());
+                if (recent.isPresent()) {
+                    response.setData(reactionSummaryService.withReactions(recent.get().messages(), currentUserId));
+                    response.setTotal(recent.get().total() + messageArchiveService.countArchived(conversationId));
+                    response.setPage(0);
+                    response.setSize(pageable.getPageSize());
+                    return response;
+                }
+            }
 
-        messageValidator.validateConversationId(conversationId);
+            Page<MessageResponse> messages = messageRepository.findByConversationId(conversationId, pageable);
 
-        Page<Message> messages = messageRepository.findByConversationId(conversationId, pageable);
+            // Scrolling past the hot window continues into message_archive
+            response.setData(reactionSummaryService.withReactions(
+                    messageArchiveService.readPage(conversationId, messages, pageable), currentUserId));
+            response.setTotal(messages.getTotalElements() + messageArchiveService.countArchived(conversationId));
+            response.setPage(pageable.getPageNumber());
+            response.setSize(pageable.getPageSize());
 
-        messages.map(messageMapper::toResponse);
+            return response;
+        });
+    }
 
-        response.setData(messages.getContent().stream().map(messageMapper::toResponse).collect(Collectors.toList()));
-        response.setTotal(messages.getTotalElements());
-        response.setPage(pageable.getPageNumber());
-        response.setSize(pageable.getPageSize());
+    /**
+     * Returns the page older than {@code before} (newest first) or newer than {@code after} (oldest first);
+     * without a cursor the latest messages are returned. The anchor message id is the cursor for the next call.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public SliceResponse<MessageResponse> getMessageHistory(UUID conversationId, UUID before, UUID after, Integer size) {
+        messageValidator.validateHistoryCursor(before, after, size);
+        return shardService.onConversation(conversationId, () -> {
+            UUID currentUserId = SecurityUtil.getIDUser();
+            messageValidator.validateParticipant(conversationService.getParticipantIds(conversationId), currentUserId);
+
+            SliceResponse<MessageResponse> response = readHistory(conversationId, before, after, size);
+            response.setData(reactionSummaryService.withReactions(response.getData(), currentUserId));
+            return response;
+        });
+    }
 
-        return response;
+    private SliceResponse<MessageResponse> readHistory(UUID conversationId, UUID before, UUID after, Integer size) {
+        Pageable limit = PageRequest.of(0, Math.min(size, historyMaxSize));
+        if (before != null) {
+            Date createdAt = messageValidator.validateCursorMessage(conversationId, before);
+            Slice<MessageResponse> messages = messageRepository.findBefore(conversationId, createdAt, before, limit);
+            return messageArchiveService.readBefore(conversationId, messages, createdAt, before, limit.getPageSize());
+        }
+        if (after != null) {
+            Date createdAt = messageValidator.validateCursorMessage(conversationId, after);
+            Slice<MessageResponse> messages = messageRepository.findAfter(conversationId, createdAt, after, limit);
+            return messageArchiveService.readAfter(conversationId, messages, createdAt, after, limit.getPageSize());
+        }
+
+        Optional<RecentMessageCacheService.RecentMessages> recent = recentMessageCacheService.getLatest(conversationId, limit.getPageSize());
+        if (recent.isPresent()) {
+            long total = recent.get().total() + messageArchiveService.countArchived(conversationId);
+            SliceResponse<MessageResponse> response = new SliceResponse<>();
+            response.setData(recent.get().messages());
+            response.setSize(recent.get().messages().size());
+            response.setHasNext(total > recent.get().messages().size());
+            return response;
+        }
+        Slice<MessageResponse> messages = messageRepository.findLatest(conversationId, limit);
+        return messageArchiveService.readBefore(conversationId, messages, null, null, limit.getPageSize());
     }
 
     @Override
-    @Transactional
     public MessageResponse sendMessage(MessageRequest messageRequest, MultipartFile file) {
-        int maxRetries = 3;
-        int retryCount = 0;
-        
-        while (retryCount < maxRetries) {
-            try {
         messageValidator.validateSendMessage(messageRequest, file);
+        return sendOnShard(messageRequest, file);
+    }
+
+    @Override
+    public MessageResponse sendAttachment(MessageRequest messageRequest, MultipartFile file) {
+        messageValidator.validateAttachment(messageRequest, file);
+        return sendOnShard(messageRequest, file);
+    }
 
+    /**
+     * Runs a send in its own transaction, so a send that lost the client message id to a concurrent one is
+     * answered with the winner's message from outside the failed transaction.
+     */
+    private MessageResponse sendOnShard(MessageRequest messageRequest, MultipartFile file) {
+        return shardService.onConversation(messageRequest.getConversationId(), () -> {
+            try {
+                return transactionTemplate.execute(status -> {
+                    messageValidator.validateNotMoving(messageRequest.getConversationId());
+                    return send(messageRequest, file);
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Concurrent send with the same client message id won the unique index, other violations are real errors
+                UUID clientMessageId = messageRequest.getClientMessageId();
+                if (clientMessageId == null || !violates(e, CLIENT_MESSAGE_ID_CONSTRAINT)) {
+                    throw e;
+                }
+                return messageRepository.findBySenderIdAndClientMessageId(SecurityUtil.getIDUser(), clientMessageId)
+                        .map(messageMapper::toResponse)
+                        .orElseThrow(() -> e);
+            }
+        });
+    }
+
+    private MessageResponse send(MessageRequest messageRequest, MultipartFile file) {
         UUID currentUserId = SecurityUtil.getIDUser();
+        UUID clientMessageId = messageRequest.getClientMessageId();
+
+        if (clientMessageId != null) {
+            // A retried send returns the stored message without writing again
+            Optional<MessageResponse> existing = findSentMessage(currentUserId, clientMessageId);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+            // Another request with the same id is in flight, it is not waited for inside this transaction
+            messageValidator.validateClientMessageClaim(messageIdempotencyService.claim(currentUserId, clientMessageId));
+        }
+
+        // Participant ids are the only conversation data the send needs: they prove the conversation exists
+        // and that the sender belongs to it, so the conversation row itself is never loaded
+        List<UUID> participantIds = conversationService.getParticipantIds(messageRequest.getConversationId());
+        messageValidator.validateParticipant(participantIds, currentUserId);
 
         Message message = Message.builder()
-                .conversation(conversationService.getConversation(messageRequest.getConversationId()))
+                .conversation(conversationService.getConversationReference(messageRequest.getConversationId()))
                 .senderId(currentUserId)
                 .content(messageRequest.getContent())
                 .type(messageRequest.getType())
                 .replyTo(messageRequest.getReplyTo())
+                .clientMessageId(clientMessageId)
                 .build();
 
-        message = messageRepository.save(message);
-        conversationService.updateLastMessage(messageRequest.getConversationId(), message.getId());
+        // The upload itself runs after commit, the message is stored with a PENDING attachment
+        if (file != null && !file.isEmpty()) {
+            attachmentService.attach(message, file);
+        }
+
+        message = messageRepository.saveAndFlush(message);
 
-        // Create message status for all participants
-        List<UUID> participantIds = message.getConversation().getParticipants().stream()
-                .map(ConversationParticipant::getUserId)
-                .toList();
+        if (clientMessageId != null) {
+            messageIdempotencyService.remember(currentUserId, clientMessageId, message.getId());
+        }
+        lastMessageService.offer(messageRequest.getConversationId(), message.getId(), message.getCreatedAt());
+        unreadCounterService.messageSent(messageRequest.getConversationId(), currentUserId);
 
-        for (UUID participantId : participantIds) {
-            MessageStatus status = MessageStatus.builder()
-                    .message(message)
-                    .userId(participantId)
-                    .status(MessageStatusType.SENT)
-                    .build();
-            messageStatusRepository.save(status);
+        // Create message status for all participants in one statement
+        if (receiptMode.writesRows()) {
+            messageStatusRepository.insertSentStatuses(message.getId().toString(), messageRequest.getConversationId().toString());
         }
 
         MessageResponse response = messageMapper.toResponse(message);
+        recentMessageCacheService.messageAdded(response);
+        messageSearchService.index(response);
 
         // Send real-time notification
         webSocketService.sendMessage(messageRequest.getConversationId(), response);
 
         return response;
-                
-            } catch (Exception e) {
-                // Check if it's a deadlock error
-                if (e.getMessage() != null && 
-                    (e.getMessage().contains("Deadlock") || 
-                     e.getMessage().contains("LockAcquisitionException")) && 
-                    retryCount < maxRetries - 1) {
-                    
-                    retryCount++;
-                    try {
-                        // Exponential backoff: 100ms, 200ms, 300ms
-                        Thread.sleep(100 * retryCount);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                    continue;
-                }
-                // If it's not a deadlock or we've exhausted retries, throw the exception
-                throw e;
-            }
+    }
+
+    private boolean violates(DataIntegrityViolationException e, String constraint) {
+        // MySQL reports the key qualified with its table, e.g. message.uk_message_sender_client_message_id
+        return e.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase().endsWith(constraint);
+    }
+
+    private Optional<MessageResponse> findSentMessage(UUID senderId, UUID clientMessageId) {
+        Optional<Message> message = messageIdempotencyService.findMessageId(senderId, clientMessageId)
+                .flatMap(messageRepository::findById);
+        if (message.isEmpty()) {
+            // The dedupe window expired or Redis is unavailable, fall back to the unique index
+            message = messageRepository.findBySenderIdAndClientMessageId(senderId, clientMessageId);
         }
-        
-        throw new RuntimeException("Failed to send message after " + maxRetries + " retries due to deadlocks");
+        return message.map(messageMapper::toResponse);
     }
 
     @Override
     @Transactional
     public MessageResponse editMessage(UUID messageId, String newContent) {
-        Message message = messageValidator.validateMessageId(messageId);
-        message.setContent(newContent);
-        message.setEdited(true);
-        message.setEditedAt(new Date());
+        return shardService.onMessage(messageId, () -> {
+            Message message = messageValidator.validateMessageId(messageId);
+            messageValidator.validateNotMoving(message.getConversation().getId());
+            message.setContent(newContent);
+            message.setEdited(true);
+            message.setEditedAt(new Date());
 
-        MessageResponse response = messageMapper.toResponse(messageRepository.save(message));
+            MessageResponse response = messageMapper.toResponse(messageRepository.save(message));
+            recentMessageCacheService.messageUpdated(response);
+            messageSearchService.index(response);
 
-        // Send real-time notification
-        webSocketService.sendMessage(message.getConversation().getId(), response);
+            // Send real-time notification
+            webSocketService.sendMessage(message.getConversation().getId(), response);
 
-        return response;
+            return response;
+        });
     }
 
     @Override
     @Transactional
     public void deleteMessage(UUID messageId) {
-        Message message = messageValidator.validateMessageId(messageId);
-        message.setDeleted(true);
-        messageRepository.save(message);
+        shardService.runOnMessage(messageId, () -> {
+            Message message = messageValidator.validateMessageId(messageId);
+            messageValidator.validateNotMoving(message.getConversation().getId());
+            message.setDeleted(true);
+            messageRepository.save(message);
 
-        // Send real-time notification
-        webSocketService.sendMessage(message.getConversation().getId(), messageMapper.toResponse(message));
+            MessageResponse response = messageMapper.toResponse(message);
+            recentMessageCacheService.messageDeleted(response);
+            messageSearchService.index(response);
+
+            // Send real-time notification
+            webSocketService.sendMessage(message.getConversation().getId(), response);
+        });
     }
 
     @Override
     @Transactional
     public void markMessageAsDelivered(UUID messageId) {
-        messageValidator.validateMessageId(messageId);
-
         UUID currentUserId = SecurityUtil.getIDUser();
+        UUID conversationId = messageValidator.validateMessageConversation(shardService.findConversationId(messageId));
+        shardService.runOnConversation(conversationId, () -> {
+            messageValidator.validateParticipant(conversationService.getParticipantIds(conversationId), currentUserId);
+            messageValidator.validateNotMoving(conversationId);
+
+            // One conditional statement per receipt store, keyed on the caller's row
+            boolean changed = false;
+            if (receiptMode.writesRows()) {
+                changed = messageStatusRepository.markMessageDelivered(messageId.toString(), currentUserId.toString()) > 0;
+            }
+            if (receiptMode.writesWatermark()) {
+                changed |= conversationParticipantRepository.advanceDeliveredTo(messageId.toString(), currentUserId.toString()) > 0;
+            }
 
-        MessageStatus status = messageStatusRepository.findByMessageIdAndUserId(messageId, currentUserId);
-        if (status != null && status.getStatus() == MessageStatusType.SENT) {
-            status.setStatus(MessageStatusType.DELIVERED);
-            status.setDeliveredAt(new Date());
-            messageStatusRepository.save(status);
-
-            // Send real-time notification
-            webSocketService.notifyMessageDelivered(
-                    status.getMessage().getConversation().getId(),
-                    messageId,
-                    currentUserId
-            );
-        }
+            if (changed) {
+                // Send real-time notification
+                webSocketService.notifyMessageDelivered(conversationId, messageId, currentUserId);
+            } else {
+                validateReceiptTarget(messageId);
+            }
+        });
     }
 
     @Override
     @Transactional
     public void markMessageAsRead(UUID messageId) {
-        messageValidator.validateMessageId(messageId);
-
         UUID currentUserId = SecurityUtil.getIDUser();
+        UUID conversationId = messageValidator.validateMessageConversation(shardService.findConversationId(messageId));
+        shardService.runOnConversation(conversationId, () -> {
+            messageValidator.validateParticipant(conversationService.getParticipantIds(conversationId), currentUserId);
+            messageValidator.validateNotMoving(conversationId);
+
+            boolean changed = false;
+            if (receiptMode.writesRows() && messageStatusRepository.markMessageRead(messageId.toString(), currentUserId.toString()) > 0) {
+                unreadCounterService.messagesRead(conversationId, currentUserId, 1);
+                changed = true;
+            }
+            if (receiptMode.writesWatermark()) {
+                // Read implies delivered, two statements so each sets only columns it does not compare
+                conversationParticipantRepository.advanceDeliveredTo(messageId.toString(), currentUserId.toString());
+                boolean advanced = conversationParticipantRepository.advanceReadTo(messageId.toString(), currentUserId.toString()) > 0;
+                if (advanced && !receiptMode.writesRows()) {
+                    unreadCounterService.refresh(conversationId, currentUserId);
+                }
+                changed |= advanced;
+            }
 
-        MessageStatus status = messageStatusRepository.findByMessageIdAndUserId(messageId, currentUserId);
-        if (!ObjectUtils.isEmpty(status) && status.getStatus() != MessageStatusType.READ) {
-            status.setStatus(MessageStatusType.READ);
-            status.setReadAt(new Date());
-            messageStatusRepository.save(status);
+            if (changed) {
+                // Send real-time notification
+                webSocketService.notifyMessageRead(conversationId, messageId, currentUserId);
+            } else {
+                validateReceiptTarget(messageId);
+            }
+        });
+    }
 
-            // Send real-time notification
-            webSocketService.notifyMessageRead(
-                    status.getMessage().getConversation().getId(),
-                    messageId,
-                    currentUserId
-            );
-        }
+    @Override
+    @Transactional
+    public void markConversationAsRead(UUID conversationId, UUID messageId) {
+        shardService.runOnConversation(conversationId, () -> {
+            UUID currentUserId = SecurityUtil.getIDUser();
+            messageValidator.validateParticipant(conversationService.getParticipantIds(conversationId), currentUserId);
+            messageValidator.validateNotMoving(conversationId);
+            Date createdAt = messageValidator.validateCursorMessage(conversationId, messageId);
+
+            // One set-based statement per receipt store instead of a lookup, save and event per message
+            boolean changed = false;
+            if (receiptMode.writesRows()) {
+                int read = messageStatusRepository.markReadUpTo(
+                        conversationId.toString(), currentUserId.toString(), createdAt, messageId.toString());
+                unreadCounterService.messagesRead(conversationId, currentUserId, read);
+                changed = read > 0;
+            }
+            if (receiptMode.writesWatermark()) {
+                boolean advanced = conversationParticipantRepository.advanceReadUpTo(conversationId, currentUserId, createdAt, messageId) > 0;
+                if (advanced && !receiptMode.writesRows()) {
+                    unreadCounterService.refresh(conversationId, currentUserId);
+                }
+                changed |= advanced;
+            }
+
+            if (changed) {
+                webSocketService.notifyConversationRead(conversationId, messageId, currentUserId, createdAt);
+            }
+        });
     }
 
     @Override
     @Transactional
-    public void addReaction(UUID messageId, String reaction) {
-        messageValidator.validateMessageId(messageId);
+    public void acknowledgeMessages(UUID conversationId, UUID userId, MessageStatusType status, MessageAckRequest request) {
+        messageValidator.validateAck(request, ackMaxBatchSize);
+        shardService.runOnConversation(conversationId, () -> {
+            messageValidator.validateParticipant(conversationService.getParticipantIds(conversationId), userId);
+            messageValidator.validateNotMoving(conversationId);
+
+            boolean read = status == MessageStatusType.READ;
+            List<UUID> messageIds = request.getMessageIds().stream().distinct().toList();
+            Date now = new Date();
+
+            if (receiptMode.writesRows()) {
+                // Two statements per frame: the acknowledged messages of this conversation that still change, then their update
+                List<UUID> changed = messageStatusRepository.findMessageIdsInStatus(conversationId, userId, messageIds,
+                        read ? EnumSet.of(MessageStatusType.SENT, MessageStatusType.DELIVERED) : EnumSet.of(MessageStatusType.SENT));
+                if (!changed.isEmpty()) {
+                    if (read) {
+                        unreadCounterService.messagesRead(conversationId, userId, messageStatusRepository.markRead(userId, changed, now));
+                    } else {
+                        messageStatusRepository.markDelivered(userId, changed, now);
+                    }
+                }
+                changed.forEach(messageId -> {
+                    if (read) {
+                        webSocketService.notifyMessageRead(conversationId, messageId, userId);
+                    } else {
+                        webSocketService.notifyMessageDelivered(conversationId, messageId, userId);
+                    }
+                });
+            }
 
+            if (receiptMode.writesWatermark()) {
+                // A pointer covers the whole batch, it moves to the newest acknowledged message
+                List<MessageResponse> newest = messageRepository.findNewestIn(conversationId, messageIds, PageRequest.of(0, 1));
+                if (newest.isEmpty()) {
+                    return;
+                }
+                MessageResponse message = newest.get(0);
+                if (read && conversationParticipantRepository.advanceReadUpTo(conversationId, userId, message.getCreatedAt(), message.getId()) > 0) {
+                    if (!receiptMode.writesRows()) {
+                        unreadCounterService.refresh(conversationId, userId);
+                    }
+                    webSocketService.notifyConversationRead(conversationId, message.getId(), userId, message.getCreatedAt());
+                }
+                if (!read && conversationParticipantRepository.advanceDeliveredUpTo(conversationId, userId, message.getCreatedAt(), message.getId()) > 0) {
+                    webSocketService.notifyMessageDelivered(conversationId, message.getId(), userId);
+                }
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public void addReaction(UUID messageId, String reaction) {
         UUID currentUserId = SecurityUtil.getIDUser();
+        UUID conversationId = messageValidator.validateMessageConversation(shardService.findConversationId(messageId));
+        shardService.runOnConversation(conversationId, () -> {
+            messageValidator.validateParticipant(conversationService.getParticipantIds(conversationId), currentUserId);
+            messageValidator.validateNotMoving(conversationId);
+
+            // The previous reaction is needed to move the summary counts
+            Optional<String> current = messageStatusRepository.findReactionForUpdate(messageId.toString(), currentUserId.toString());
+            messageValidator.validateNotArchived(current.isPresent());
+            String previous = current.filter(StringUtils::hasText).orElse(null);
+            boolean changed;
+            if (receiptMode.writesRows()) {
+                changed = messageStatusRepository.updateReaction(messageId.toString(), currentUserId.toString(), reaction) > 0;
+            } else {
+                // Status rows are not created on send in watermark mode, so the reaction creates its own row
+                changed = !Objects.equals(previous, reaction)
+                        && messageStatusRepository.upsertReaction(messageId.toString(), currentUserId.toString(), reaction) > 0;
+            }
 
-        MessageStatus status = messageStatusRepository.findByMessageIdAndUserId(messageId, currentUserId);
-        if (!ObjectUtils.isEmpty(status)) {
-            status.setReaction(reaction);
-            messageStatusRepository.save(status);
+            if (changed) {
+                reactionSummaryService.reactionChanged(messageId, previous, reaction);
+                // Send real-time notification
+                webSocketService.notifyMessageReaction(conversationId, messageId, currentUserId, reaction);
+            }
+        });
+    }
 
-            // Send real-time notification
-            webSocketService.notifyMessageReaction(
-                    status.getMessage().getConversation().getId(),
-                    messageId,
-                    currentUserId,
-                    reaction
-            );
-        }
+    private void validateReceiptTarget(UUID messageId) {
+        // Nothing changed, which is also all a receipt on an archived message would do
+        messageValidator.validateNotArchived(messageRepository.existsById(messageId));
+    }
+
+    @Override
+    public MessageReceiptResponse getMessageReceipts(UUID messageId) {
+        return shardService.onMessage(messageId, () -> {
+            Message message = messageValidator.validateMessageId(messageId);
+
+            List<UUID> deliveredTo;
+            List<UUID> readBy;
+            if (receiptMode == ReceiptMode.WATERMARK) {
+                // A participant has seen every message up to its pointer in history order
+                UUID conversationId = message.getConversation().getId();
+                deliveredTo = conversationParticipantRepository.findUserIdsDeliveredUpTo(conversationId, message.getCreatedAt(), messageId);
+                readBy = conversationParticipantRepository.findUserIdsReadUpTo(conversationId, message.getCreatedAt(), messageId);
+            } else {
+                deliveredTo = messageStatusRepository.findUserIdsByMessageIdAndStatusIn(
+                        messageId, EnumSet.of(MessageStatusType.DELIVERED, MessageStatusType.READ));
+                readBy = messageStatusRepository.findUserIdsByMessageIdAndStatusIn(
+                        messageId, EnumSet.of(MessageStatusType.READ));
+            }
+
+            return MessageReceiptResponse.builder()
+                    .messageId(messageId)
+                    .deliveredTo(deliveredTo.stream().filter(userId -> !userId.equals(message.getSenderId())).toList())
+                    .readBy(readBy.stream().filter(userId -> !userId.equals(message.getSenderId())).toList())
+                    .build();
+        });
     }
-}
\ No newline at end of file
+}
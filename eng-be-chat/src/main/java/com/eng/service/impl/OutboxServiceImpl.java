@@ -0,0 +1,272 @@
+package com.eng.service.impl;
+
+import com.eng.entities.ChatOutboxEvent;
+import com.eng.repositories.ChatOutboxLeaseRepository;
+import com.eng.repositories.ChatOutboxRepository;
+import com.eng.service.OutboxCoalescer;
+import com.eng.service.OutboxService;
+import com.eng.service.ShardService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional outbox for chat events.
+ * <p>
+ * Events published inside a transaction are stored in chat_outbox with that transaction, so clients never
+ * see an event whose data rolled back and the transaction does not wait for STOMP encoding. A single relay
+ * thread, woken after each commit and by a periodic poll, drains the table in batches and deletes what it
+ * sent. A crash between send and delete re-sends the batch: delivery is at-least-once. Events of a batch whose
+ * destination an {@link OutboxCoalescer} handles are merged into one frame, sent in place of the destination's
+ * last event.
+ * <p>
+ * The broker is the in-memory simple broker of each instance, so a relay only sends the events its own instance
+ * wrote, to the sessions connected to it. Every instance renews a lease in chat_outbox_lease every
+ * {@code lease-seconds} / 3; events of an instance whose lease expired are taken over by the others once they are
+ * a lease old, which clears the table after a crash. Clients of the crashed instance reconnect elsewhere and
+ * catch up through delta sync.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxServiceImpl implements OutboxService {
+
+    private final ChatOutboxRepository chatOutboxRepository;
+    private final ChatOutboxLeaseRepository chatOutboxLeaseRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ShardService shardService;
+    private final List<OutboxCoalescer> coalescers;
+
+    @Value("${custom.chat.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${custom.chat.outbox.lease-seconds:30}")
+    private long leaseSeconds;
+
+    private final String owner = UUID.randomUUID().toString();
+    private volatile List<String> liveOwners = List.of(owner);
+    private volatile long leaseRenewedAt;
+
+    private final ExecutorService relayExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "chat-outbox-relay"));
+    private final AtomicBoolean relayScheduled = new AtomicBoolean();
+    private final AtomicLong relayLagMillis = new AtomicLong();
+    private Counter relayedCounter;
+    private Counter coalescedCounter;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("chat.outbox.relay.lag", relayLagMillis, AtomicLong::get)
+                .description("Time between writing the last relayed event and sending it to the broker")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        relayedCounter = Counter.builder("chat.outbox.relayed")
+                .description("Chat events sent to the broker by the outbox relay")
+                .register(meterRegistry);
+        coalescedCounter = Counter.builder("chat.outbox.coalesced")
+                .description("Chat events merged into another event's frame by the outbox relay")
+                .register(meterRegistry);
+        // Before the first event is written, so no other relay takes this instance's events for a dead one's
+        renewLease();
+    }
+
+    @Override
+    public void publish(String destination, Object payload) {
+        if (store(destination, payload)) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void publishDeferred(String destination, Object payload) {
+        store(destination, payload);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${custom.chat.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        wakeUp();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        relayExecutor.shutdown();
+    }
+
+    /**
+     * Stores the event with the active transaction, or sends it straight away when there is none.
+     *
+     * @return whether the event was stored
+     */
+    private boolean store(String destination, Object payload) {
+        String json = toJson(payload);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            send(destination, json);
+            return false;
+        }
+
+        chatOutboxRepository.save(ChatOutboxEvent.builder()
+                .destination(destination)
+                .payload(json)
+                .owner(owner)
+                .build());
+        return true;
+    }
+
+    private void wakeUp() {
+        if (relayScheduled.compareAndSet(false, true)) {
+            relayExecutor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        // Cleared first so a commit that happens while draining schedules another pass
+        relayScheduled.set(false);
+        if (System.currentTimeMillis() - leaseRenewedAt >= TimeUnit.SECONDS.toMillis(leaseSeconds) / 3) {
+            renewLease();
+        }
+        // Events are stored on the shard of the transaction that published them
+        for (int shard = 0; shard < shardService.shardCount(); shard++) {
+            try {
+                shardService.onShard(shard, () -> {
+                    Integer relayed;
+                    do {
+                        relayed = transactionTemplate.execute(status -> relayBatch());
+                    } while (relayed != null && relayed == batchSize);
+                    return relayed;
+                });
+            } catch (Exception e) {
+                log.error("Outbox relay failed on shard {}, pending events are retried on the next pass: {}",
+                        shard, e.getMessage(), e);
+            }
+        }
+    }
+
+    private int relayBatch() {
+        List<ChatOutboxEvent> events = chatOutboxRepository.lockNextBatch(owner, liveOwners, leaseSeconds, batchSize);
+        if (events.isEmpty()) {
+            relayLagMillis.set(0);
+            return 0;
+        }
+
+        Map<Object, List<ChatOutboxEvent>> frames = frames(events);
+        for (List<ChatOutboxEvent> frame : frames.values()) {
+            ChatOutboxEvent first = frame.get(0);
+            if (frame.size() == 1) {
+                send(first.getDestination(), first.getPayload());
+                continue;
+            }
+            String payload = coalescer(first.getDestination())
+                    .coalesce(frame.stream().map(ChatOutboxEvent::getPayload).toList());
+            send(first.getDestination(), payload);
+            coalescedCounter.increment(frame.size() - 1);
+        }
+        chatOutboxRepository.deleteAllByIdInBatch(events.stream().map(ChatOutboxEvent::getId).toList());
+
+        ChatOutboxEvent last = events.get(events.size() - 1);
+        relayLagMillis.set(Math.max(0, System.currentTimeMillis() - last.getCreatedAt().getTime()));
+        relayedCounter.increment(events.size());
+        return events.size();
+    }
+
+    private void renewLease() {
+        try {
+            List<String> live = shardService.onShard(0, () -> transactionTemplate.execute(status -> {
+                chatOutboxLeaseRepository.renew(owner);
+                // Leases of instances gone for long, their events were taken over long ago
+                chatOutboxLeaseRepository.deleteExpired(leaseSeconds * 10);
+                return chatOutboxLeaseRepository.findLiveOwners(leaseSeconds);
+            }));
+            Set<String> owners = new HashSet<>(live != null ? live : List.of());
+            owners.add(owner);
+            liveOwners = List.copyOf(owners);
+            leaseRenewedAt = System.currentTimeMillis();
+        } catch (Exception e) {
+            // Retried on the next pass; the lease lasts three renewal periods
+            log.warn("Outbox relay lease renewal failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Groups the batch into frames in send order. Events of a coalesced destination move to the position of its
+     * last event, so a merged frame never overtakes an event published before any of its parts.
+     */
+    private Map<Object, List<ChatOutboxEvent>> frames(List<ChatOutboxEvent> events) {
+        Map<Object, List<ChatOutboxEvent>> frames = new LinkedHashMap<>();
+        for (ChatOutboxEvent event : events) {
+            if (coalescer(event.getDestination()) == null) {
+                frames.put(event.getId(), List.of(event));
+                continue;
+            }
+            List<ChatOutboxEvent> frame = frames.remove(event.getDestination());
+            frame = frame != null ? frame : new ArrayList<>();
+            frame.add(event);
+            frames.put(event.getDestination(), frame);
+        }
+        return frames;
+    }
+
+    private OutboxCoalescer coalescer(String destination) {
+        for (OutboxCoalescer coalescer : coalescers) {
+            if (coalescer.coalesces(destination)) {
+                return coalescer;
+            }
+        }
+        return null;
+    }
+
+    private void send(String destination, String json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination,
+                MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders()));
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Chat event payload cannot be serialized", e);
+        }
+    }
+}
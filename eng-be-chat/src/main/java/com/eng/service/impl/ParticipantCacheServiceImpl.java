@@ -0,0 +1,128 @@
+package com.eng.service.impl;
+
+import com.eng.repositories.ConversationParticipantRepository;
+import com.eng.service.ParticipantCacheService;
+import com.eng.service.ShardService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Participant ids per conversation, read on every send for authorization and fan-out.
+ * <p>
+ * A local Caffeine tier sits in front of the Redis set {@code conversation:participants:<conversationId>},
+ * which in turn is filled from conversation_participant on a miss. Membership writes replace the Redis set
+ * after commit and drop the local entry; other instances pick the change up when their short local TTL
+ * expires. Redis failures are logged and the lookup falls back to the database.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ParticipantCacheServiceImpl implements ParticipantCacheService {
+    private static final String PARTICIPANTS_KEY = "conversation:participants:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ConversationParticipantRepository conversationParticipantRepository;
+    private final ShardService shardService;
+
+    @Value("${custom.chat.participant-cache.local-size:10000}")
+    private long localSize;
+
+    @Value("${custom.chat.participant-cache.local-ttl-seconds:30}")
+    private long localTtlSeconds;
+
+    @Value("${custom.chat.participant-cache.redis-ttl-hours:24}")
+    private long redisTtlHours;
+
+    private Cache<UUID, List<UUID>> localCache;
+
+    @PostConstruct
+    void buildLocalCache() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(localSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .build();
+    }
+
+    @Override
+    public List<UUID> getParticipantIds(UUID conversationId) {
+        // Unknown conversations load an empty list, which Caffeine does not keep
+        List<UUID> participantIds = localCache.get(conversationId, this::load);
+        return participantIds != null ? participantIds : List.of();
+    }
+
+    @Override
+    public void put(UUID conversationId, Collection<UUID> participantIds) {
+        List<UUID> snapshot = List.copyOf(participantIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                store(conversationId, snapshot);
+                localCache.put(conversationId, snapshot);
+            }
+        });
+    }
+
+    @Override
+    public void evict(UUID conversationId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                localCache.invalidate(conversationId);
+                try {
+                    redisTemplate.delete(key(conversationId));
+                } catch (DataAccessException e) {
+                    log.warn("Participant cache evict failed for conversation {}: {}", conversationId, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private List<UUID> load(UUID conversationId) {
+        try {
+            Set<String> members = redisTemplate.opsForSet().members(key(conversationId));
+            if (members != null && !members.isEmpty()) {
+                return members.stream().map(UUID::fromString).toList();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Participant cache lookup failed for conversation {}: {}", conversationId, e.getMessage());
+        }
+
+        List<UUID> participantIds = List.copyOf(shardService.onConversation(conversationId,
+                () -> conversationParticipantRepository.findUserIdsByConversationId(conversationId)));
+        if (participantIds.isEmpty()) {
+            return null;
+        }
+        store(conversationId, participantIds);
+        return participantIds;
+    }
+
+    private void store(UUID conversationId, List<UUID> participantIds) {
+        String key = key(conversationId);
+        try {
+            redisTemplate.delete(key);
+            redisTemplate.opsForSet().add(key, participantIds.stream().map(UUID::toString).toArray(String[]::new));
+            redisTemplate.expire(key, Duration.ofHours(redisTtlHours));
+        } catch (DataAccessException e) {
+            log.warn("Participant cache store failed for conversation {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    private String key(UUID conversationId) {
+        return PARTICIPANTS_KEY + conversationId;
+    }
+}
@@ -0,0 +1,141 @@
+package com.eng.service.impl;
+
+import com.eng.models.response.MessageResponse;
+import com.eng.models.response.ReactionSummaryResponse;
+import com.eng.repositories.MessageReactionRepository;
+import com.eng.repositories.MessageStatusRepository;
+import com.eng.service.ReactionSummaryService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Reaction counts per message, read for whole history pages.
+ * <p>
+ * Counts live in message_reaction and are moved by {@link #reactionChanged} in the transaction that changes the
+ * user's reaction in message_status. A local cache keeps the counts of recently read messages for
+ * {@code ttl-seconds}; changes drop the entry on this instance, other instances catch up when it expires. A page
+ * costs at most one query: messages missing from the cache are read together with the caller's own reactions,
+ * and when every count is cached only the caller's reactions on messages that have any are read.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactionSummaryServiceImpl implements ReactionSummaryService {
+    private static final Comparator<ReactionSummaryResponse> MOST_USED_FIRST = Comparator
+            .comparingLong(ReactionSummaryResponse::getCount).reversed()
+            .thenComparing(ReactionSummaryResponse::getReaction);
+
+    private final MessageReactionRepository messageReactionRepository;
+    private final MessageStatusRepository messageStatusRepository;
+
+    @Value("${custom.chat.reaction-cache.size:50000}")
+    private long cacheSize;
+
+    @Value("${custom.chat.reaction-cache.ttl-seconds:30}")
+    private long cacheTtlSeconds;
+
+    private Cache<UUID, Map<String, Long>> counts;
+
+    @PostConstruct
+    void buildCache() {
+        counts = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .build();
+    }
+
+    @Override
+    public void reactionChanged(UUID messageId, String previous, String current) {
+        boolean hadReaction = StringUtils.hasText(previous);
+        boolean hasReaction = StringUtils.hasText(current);
+        if (hadReaction ? hasReaction && previous.equals(current) : !hasReaction) {
+            return;
+        }
+
+        if (hadReaction) {
+            messageReactionRepository.decrement(messageId.toString(), previous);
+        }
+        if (hasReaction) {
+            messageReactionRepository.increment(messageId.toString(), current);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                counts.invalidate(messageId);
+            }
+        });
+    }
+
+    @Override
+    public List<MessageResponse> withReactions(List<MessageResponse> messages, UUID userId) {
+        if (messages.isEmpty()) {
+            return messages;
+        }
+
+        List<UUID> messageIds = messages.stream().map(MessageResponse::getId).toList();
+        Map<UUID, Map<String, Long>> summaries = new HashMap<>(counts.getAllPresent(messageIds));
+        List<UUID> missing = messageIds.stream().filter(id -> !summaries.containsKey(id)).toList();
+        // Only messages someone reacted to can carry a reaction of the caller
+        List<UUID> reacted = summaries.entrySet().stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .map(Map.Entry::getKey)
+                .toList();
+
+        Map<UUID, Set<String>> own = new HashMap<>();
+        if (!missing.isEmpty()) {
+            List<UUID> loaded = new ArrayList<>(missing);
+            loaded.addAll(reacted);
+            loaded.forEach(id -> summaries.put(id, new HashMap<>()));
+            for (Object[] row : messageReactionRepository.findSummaries(loaded, userId)) {
+                UUID messageId = (UUID) row[0];
+                String reaction = (String) row[1];
+                summaries.get(messageId).put(reaction, ((Number) row[2]).longValue());
+                if (row[3] != null) {
+                    own.computeIfAbsent(messageId, id -> new HashSet<>()).add(reaction);
+                }
+            }
+            loaded.forEach(id -> counts.put(id, Map.copyOf(summaries.get(id))));
+        } else if (!reacted.isEmpty()) {
+            for (Object[] row : messageStatusRepository.findReactions(userId, reacted)) {
+                own.computeIfAbsent((UUID) row[0], id -> new HashSet<>()).add((String) row[1]);
+            }
+        }
+
+        // Cached responses are shared between users, the caller gets copies
+        return messages.stream()
+                .map(message -> message.toBuilder()
+                        .reactions(toResponse(summaries.get(message.getId()), own.getOrDefault(message.getId(), Set.of())))
+                        .build())
+                .toList();
+    }
+
+    private List<ReactionSummaryResponse> toResponse(Map<String, Long> summary, Set<String> own) {
+        if (summary == null || summary.isEmpty()) {
+            return List.of();
+        }
+        return summary.entrySet().stream()
+                .map(entry -> ReactionSummaryResponse.builder()
+                        .reaction(entry.getKey())
+                        .count(entry.getValue())
+                        .reacted(own.contains(entry.getKey()))
+                        .build())
+                .sorted(MOST_USED_FIRST)
+                .toList();
+    }
+}
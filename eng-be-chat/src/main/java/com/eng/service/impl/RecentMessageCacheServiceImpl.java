@@ -0,0 +1,290 @@
+package com.eng.service.impl;
+
+import com.eng.models.response.MessageResponse;
+import com.eng.repositories.MessageRepository;
+import com.eng.service.RecentMessageCacheService;
+import com.eng.service.ShardService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Ring buffer of the newest messages per conversation, so opening a chat does not query MySQL.
+ * <p>
+ * Each buffer holds up to {@code capacity} responses, newest first, plus the conversation's message count.
+ * It is filled from the database on the first read and kept current by send, edit and delete after their
+ * transactions commit. The local Caffeine tier is size bounded across conversations. With the optional Redis
+ * tier enabled, a local miss reads {@code conversation:recent:<conversationId>} before the database and any
+ * change drops that key; local buffers of other instances expire after {@code local-ttl-seconds}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecentMessageCacheServiceImpl implements RecentMessageCacheService {
+    private static final String RECENT_KEY = "conversation:recent:";
+    private static final Comparator<MessageResponse> NEWEST_FIRST = Comparator
+            .comparing(MessageResponse::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(MessageResponse::getId)
+            .reversed();
+
+    private final MessageRepository messageRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ShardService shardService;
+
+    @Value("${custom.chat.recent-cache.capacity:50}")
+    private int capacity;
+
+    @Value("${custom.chat.recent-cache.max-conversations:5000}")
+    private long maxConversations;
+
+    @Value("${custom.chat.recent-cache.local-ttl-seconds:60}")
+    private long localTtlSeconds;
+
+    @Value("${custom.chat.recent-cache.redis-enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${custom.chat.recent-cache.redis-ttl-minutes:30}")
+    private long redisTtlMinutes;
+
+    private Cache<UUID, RecentBuffer> buffers;
+    private Counter pageHits;
+    private Counter pageMisses;
+
+    @PostConstruct
+    void buildCache() {
+        buffers = Caffeine.newBuilder()
+                .maximumSize(maxConversations)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buffers, "chat.recent-messages");
+        pageHits = Counter.builder("chat.recent-messages.pages")
+                .description("History pages answered from the recent-message buffer")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        pageMisses = Counter.builder("chat.recent-messages.pages")
+                .description("History pages answered from the recent-message buffer")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("chat.recent-messages.buffered", buffers, cache -> cache.asMap().values().stream()
+                        .mapToLong(RecentBuffer::size).sum())
+                .description("Messages held in recent-message buffers")
+                .register(meterRegistry);
+        Gauge.builder("chat.recent-messages.content", buffers, cache -> cache.asMap().values().stream()
+                        .mapToLong(RecentBuffer::contentBytes).sum())
+                .description("Approximate heap used by the content of buffered messages")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<RecentMessages> getLatest(UUID conversationId, int size) {
+        if (size > capacity) {
+            pageMisses.increment();
+            return Optional.empty();
+        }
+
+        Optional<RecentMessages> latest = buffers.get(conversationId, this::load).latest(size);
+        (latest.isPresent() ? pageHits : pageMisses).increment();
+        return latest;
+    }
+
+    @Override
+    public void messageAdded(MessageResponse message) {
+        afterCommit(message.getConversationId(), buffer -> {
+            buffer.add(message);
+            return true;
+        });
+    }
+
+    @Override
+    public void messageUpdated(MessageResponse message) {
+        afterCommit(message.getConversationId(), buffer -> {
+            buffer.replace(message);
+            return true;
+        });
+    }
+
+    @Override
+    public void messageDeleted(MessageResponse message) {
+        // A deleted message outside the buffer changes the count only, the buffer is reloaded instead
+        afterCommit(message.getConversationId(), buffer -> buffer.remove(message.getId()));
+    }
+
+    private void afterCommit(UUID conversationId, BufferUpdate update) {
+        Runnable apply = () -> {
+            buffers.asMap().computeIfPresent(conversationId, (id, buffer) -> update.apply(buffer) ? buffer : null);
+            if (redisEnabled) {
+                evictRedis(conversationId);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+
+    private RecentBuffer load(UUID conversationId) {
+        if (redisEnabled) {
+            Optional<RecentBuffer> shared = readRedis(conversationId);
+            if (shared.isPresent()) {
+                return shared.get();
+            }
+        }
+
+        Page<MessageResponse> page = shardService.onConversation(conversationId,
+                () -> messageRepository.findByConversationId(conversationId, PageRequest.of(0, capacity)));
+        RecentBuffer buffer = new RecentBuffer(capacity, page.getContent(), page.getTotalElements());
+        if (redisEnabled) {
+            writeRedis(conversationId, buffer);
+        }
+        return buffer;
+    }
+
+    private Optional<RecentBuffer> readRedis(UUID conversationId) {
+        try {
+            String json = redisTemplate.opsForValue().get(RECENT_KEY + conversationId);
+            if (json != null) {
+                RecentMessages stored = objectMapper.readValue(json, RecentMessages.class);
+                return Optional.of(new RecentBuffer(capacity, stored.messages(), stored.total()));
+            }
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Recent messages lookup failed for conversation {}: {}", conversationId, e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private void writeRedis(UUID conversationId, RecentBuffer buffer) {
+        try {
+            redisTemplate.opsForValue().set(RECENT_KEY + conversationId,
+                    objectMapper.writeValueAsString(buffer.snapshot()), Duration.ofMinutes(redisTtlMinutes));
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Recent messages store failed for conversation {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    private void evictRedis(UUID conversationId) {
+        try {
+            redisTemplate.delete(RECENT_KEY + conversationId);
+        } catch (DataAccessException e) {
+            log.warn("Recent messages evict failed for conversation {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface BufferUpdate {
+        /**
+         * @return false when the buffer can no longer answer pages and must be dropped
+         */
+        boolean apply(RecentBuffer buffer);
+    }
+
+    /**
+     * Newest-first messages of one conversation, trimmed to the capacity.
+     */
+    private static final class RecentBuffer {
+        private final int capacity;
+        private final List<MessageResponse> messages;
+        private long total;
+
+        private RecentBuffer(int capacity, List<MessageResponse> messages, long total) {
+            this.capacity = capacity;
+            this.messages = new ArrayList<>(messages);
+            this.total = total;
+        }
+
+        synchronized Optional<RecentMessages> latest(int size) {
+            // Either enough buffered messages, or the buffer holds the whole conversation
+            if (messages.size() < size && messages.size() < total) {
+                return Optional.empty();
+            }
+            return Optional.of(new RecentMessages(List.copyOf(messages.subList(0, Math.min(size, messages.size()))), total));
+        }
+
+        synchronized void add(MessageResponse message) {
+            if (indexOf(message.getId()) >= 0) {
+                return;
+            }
+            int position = 0;
+            while (position < messages.size() && NEWEST_FIRST.compare(messages.get(position), message) < 0) {
+                position++;
+            }
+            messages.add(position, message);
+            total++;
+            if (messages.size() > capacity) {
+                messages.remove(messages.size() - 1);
+            }
+        }
+
+        synchronized void replace(MessageResponse message) {
+            int index = indexOf(message.getId());
+            if (index >= 0) {
+                messages.set(index, message);
+            }
+        }
+
+        synchronized boolean remove(UUID messageId) {
+            int index = indexOf(messageId);
+            if (index < 0) {
+                return false;
+            }
+            messages.remove(index);
+            total--;
+            return true;
+        }
+
+        synchronized RecentMessages snapshot() {
+            return new RecentMessages(List.copyOf(messages), total);
+        }
+
+        synchronized long size() {
+            return messages.size();
+        }
+
+        synchronized long contentBytes() {
+            return messages.stream()
+                    .mapToLong(message -> message.getContent() != null ? 2L * message.getContent().length() : 0)
+                    .sum();
+        }
+
+        private int indexOf(UUID messageId) {
+            for (int i = 0; i < messages.size(); i++) {
+                if (messages.get(i).getId().equals(messageId)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
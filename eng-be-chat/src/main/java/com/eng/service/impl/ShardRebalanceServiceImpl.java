@@ -0,0 +1,404 @@
+package com.eng.service.impl;
+
+import com.eng.config.ShardDataSources;
+import com.eng.exceptions.InternalServerException;
+import com.eng.models.response.ShardMoveResponse;
+import com.eng.models.response.ShardRebalanceResponse;
+import com.eng.service.ShardRebalanceService;
+import com.eng.service.ShardService;
+import com.eng.validators.ShardValidator;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.eng.constants.MessageErrors.USER_SERVER_ERROR;
+
+/**
+ * Moves conversations between message store shards while the service keeps running.
+ * <p>
+ * Writes to the moved conversations are refused or deferred while they are locked, and the move waits
+ * {@code move-drain-ms} for writes that passed the check just before. Their rows are then read from one
+ * REPEATABLE READ snapshot of the source shard, written to the target shard in one transaction and the directory
+ * is pointed at it. The lock is held for another directory cache lifetime so no instance writes to the old shard,
+ * and only then are the old rows deleted. Reads keep working throughout: both shards hold the full conversation
+ * until every instance routes to the new one.
+ * <p>
+ * The lock is renewed and checked before the directory switch and before the delete. A conversation whose lock
+ * expired or was taken over may have been written on the source shard meanwhile, so it is not switched, or its
+ * source rows are kept and logged for reconciliation.
+ * <p>
+ * Rebalancing runs as a background job that pages through the directory, then through the conversations on
+ * shard 0 that predate it, and moves every conversation not on the shard its id hashes to. Only
+ * {@code move-group-size} conversations are locked at a time, so a page never blocks the writes of many.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ShardRebalanceServiceImpl implements ShardRebalanceService {
+    private static final int BATCH_SIZE = 500;
+    private static final String FIRST_ID = new UUID(0, 0).toString();
+
+    /**
+     * Rows of one conversation per table, parents first.
+     */
+    private static final Map<String, String> CONVERSATION_ROWS = new LinkedHashMap<>();
+
+    static {
+        CONVERSATION_ROWS.put("conversation", "SELECT * FROM conversation WHERE id = UUID_TO_BIN(?)");
+        CONVERSATION_ROWS.put("conversation_participant", "SELECT * FROM conversation_participant WHERE conversation_id = UUID_TO_BIN(?)");
+        CONVERSATION_ROWS.put("message", "SELECT * FROM message WHERE conversation_id = UUID_TO_BIN(?)");
+        CONVERSATION_ROWS.put("message_status", "SELECT ms.* FROM message_status ms JOIN message m ON m.id = ms.message_id " +
+                "WHERE m.conversation_id = UUID_TO_BIN(?)");
+        CONVERSATION_ROWS.put("message_reaction", "SELECT mr.* FROM message_reaction mr JOIN message m ON m.id = mr.message_id " +
+                "WHERE m.conversation_id = UUID_TO_BIN(?)");
+        CONVERSATION_ROWS.put("message_archive", "SELECT * FROM message_archive WHERE conversation_id = UUID_TO_BIN(?)");
+        CONVERSATION_ROWS.put("message_status_archive", "SELECT msa.* FROM message_status_archive msa " +
+                "JOIN message_archive ma ON ma.id = msa.message_id WHERE ma.conversation_id = UUID_TO_BIN(?)");
+        CONVERSATION_ROWS.put("message_reaction_archive", "SELECT mra.* FROM message_reaction_archive mra " +
+                "JOIN message_archive ma ON ma.id = mra.message_id WHERE ma.conversation_id = UUID_TO_BIN(?)");
+    }
+
+    private final ShardService shardService;
+    private final ShardDataSources shardDataSources;
+    private final ShardValidator shardValidator;
+
+    @Value("${custom.chat.sharding.move-drain-ms:2000}")
+    private long moveDrainMillis;
+
+    @Value("${custom.chat.sharding.directory-ttl-seconds:10}")
+    private long directoryTtlSeconds;
+
+    @Value("${custom.chat.sharding.move-group-size:4}")
+    private int moveGroupSize;
+
+    private final ExecutorService rebalanceExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "chat-shard-rebalance"));
+    private final AtomicBoolean rebalancing = new AtomicBoolean();
+    private volatile ShardRebalanceResponse progress = ShardRebalanceResponse.builder().build();
+
+    @PreDestroy
+    void shutdown() {
+        rebalanceExecutor.shutdownNow();
+    }
+
+    @Override
+    public ShardMoveResponse move(UUID conversationId, Integer shard) {
+        shardValidator.validateAdmin();
+        shardValidator.validateMove(conversationId, shard, shardService.shardCount());
+
+        int source = shardService.shardOf(conversationId);
+        if (source == shard) {
+            return new ShardMoveResponse(conversationId, source, shard, 0);
+        }
+        shardValidator.validateMoveLock(shardService.lockMove(conversationId));
+
+        List<ShardMoveResponse> moved = moveLocked(List.of(new Move(conversationId, source, shard)));
+        if (moved.isEmpty()) {
+            throw new InternalServerException(USER_SERVER_ERROR.toString());
+        }
+        return moved.get(0);
+    }
+
+    @Override
+    public ShardRebalanceResponse rebalance(Integer limit) {
+        shardValidator.validateAdmin();
+        shardValidator.validateMoveLimit(limit);
+        shardValidator.validateRebalanceStart(rebalancing.compareAndSet(false, true));
+
+        progress = ShardRebalanceResponse.builder()
+                .running(true)
+                .limit(limit)
+                .startedAt(new Date())
+                .build();
+        try {
+            rebalanceExecutor.execute(() -> runRebalance(limit));
+        } catch (RejectedExecutionException e) {
+            finish();
+            throw new InternalServerException(USER_SERVER_ERROR.toString());
+        }
+        return progress;
+    }
+
+    @Override
+    public ShardRebalanceResponse getRebalance() {
+        shardValidator.validateAdmin();
+        return progress;
+    }
+
+    private void runRebalance(int limit) {
+        try {
+            // Conversations with a directory row, the source shard is read with the row
+            String afterId = FIRST_ID;
+            while (afterId != null && remaining(limit) > 0) {
+                afterId = movePage(new JdbcTemplate(shardDataSources.primary(0)).query(
+                        "SELECT BIN_TO_UUID(conversation_id), shard FROM conversation_shard " +
+                                "WHERE conversation_id > UUID_TO_BIN(?) ORDER BY conversation_id LIMIT ?",
+                        (resultSet, row) -> new Move(UUID.fromString(resultSet.getString(1)), resultSet.getInt(2), 0),
+                        afterId, Math.min(BATCH_SIZE, remaining(limit))));
+            }
+
+            // Conversations created before sharding have no directory row and live on shard 0
+            afterId = FIRST_ID;
+            while (afterId != null && remaining(limit) > 0) {
+                afterId = movePage(new JdbcTemplate(shardDataSources.primary(0)).query(
+                        "SELECT BIN_TO_UUID(c.id) FROM conversation c " +
+                                "LEFT JOIN conversation_shard s ON s.conversation_id = c.id " +
+                                "WHERE s.conversation_id IS NULL AND c.id > UUID_TO_BIN(?) ORDER BY c.id LIMIT ?",
+                        (resultSet, row) -> new Move(UUID.fromString(resultSet.getString(1)), 0, 0),
+                        afterId, Math.min(BATCH_SIZE, remaining(limit))));
+            }
+            log.info("Shard rebalance finished: {} conversations moved, {} failed", progress.getMoved(), progress.getFailed());
+        } catch (Exception e) {
+            log.error("Shard rebalance stopped after {} conversations: {}", progress.getMoved(), e.getMessage(), e);
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Moves the conversations of a directory page that are off their hash shard; returns the id to continue
+     * after, or null past the last page.
+     */
+    private String movePage(List<Move> page) {
+        if (page.isEmpty()) {
+            return null;
+        }
+
+        List<Move> candidates = new ArrayList<>();
+        for (Move row : page) {
+            int target = shardService.hashShard(row.conversationId());
+            if (target != row.source()) {
+                candidates.add(new Move(row.conversationId(), row.source(), target));
+            }
+        }
+        for (int from = 0; from < candidates.size(); from += moveGroupSize) {
+            moveGroup(candidates.subList(from, Math.min(from + moveGroupSize, candidates.size())));
+        }
+        return page.get(page.size() - 1).conversationId().toString();
+    }
+
+    private void moveGroup(List<Move> group) {
+        List<Move> moves = new ArrayList<>();
+        for (Move move : group) {
+            if (shardService.lockMove(move.conversationId())) {
+                moves.add(move);
+            }
+        }
+        if (moves.isEmpty()) {
+            return;
+        }
+
+        List<ShardMoveResponse> moved = moveLocked(moves);
+        long copiedRows = moved.stream().mapToLong(ShardMoveResponse::getCopiedRows).sum();
+        progress = progress.toBuilder()
+                .moved(progress.getMoved() + moved.size())
+                .failed(progress.getFailed() + moves.size() - moved.size())
+                .copiedRows(progress.getCopiedRows() + copiedRows)
+                .build();
+    }
+
+    private int remaining(int limit) {
+        return limit - progress.getMoved() - progress.getFailed();
+    }
+
+    private void finish() {
+        progress = progress.toBuilder()
+                .running(false)
+                .finishedAt(new Date())
+                .build();
+        rebalancing.set(false);
+    }
+
+    private List<ShardMoveResponse> moveLocked(List<Move> moves) {
+        List<ShardMoveResponse> moved = new ArrayList<>();
+        try {
+            // Writes that passed the lock check before it was taken finish on the source shard
+            pause(moveDrainMillis);
+            for (Move move : moves) {
+                try {
+                    long copiedRows = copy(move);
+                    if (!shardService.extendMove(move.conversationId())) {
+                        // Writers may have passed the check since the lock went, the copy can be behind the source
+                        log.error("Move lock of conversation {} was lost, it stays on shard {}",
+                                move.conversationId(), move.source());
+                        discardCopy(move);
+                        continue;
+                    }
+                    shardService.assign(move.conversationId(), move.target());
+                    moved.add(new ShardMoveResponse(move.conversationId(), move.source(), move.target(), copiedRows));
+                } catch (DataAccessException e) {
+                    log.error("Moving conversation {} from shard {} to {} failed, it stays on shard {}: {}",
+                            move.conversationId(), move.source(), move.target(), move.source(), e.getMessage(), e);
+                }
+            }
+            // Other instances route to the source shard until their cached directory entry expires
+            if (!moved.isEmpty()) {
+                pause(directoryTtlSeconds * 1000);
+            }
+        } finally {
+            moved.removeIf(response -> !keepsLock(response));
+            moves.forEach(move -> shardService.unlockMove(move.conversationId()));
+        }
+
+        for (ShardMoveResponse response : moved) {
+            try {
+                transactionOn(response.getFromShard()).executeWithoutResult(status ->
+                        delete(new JdbcTemplate(shardDataSources.primary(response.getFromShard())), response.getConversationId()));
+                log.info("Moved conversation {} from shard {} to {} ({} rows)", response.getConversationId(),
+                        response.getFromShard(), response.getToShard(), response.getCopiedRows());
+            } catch (DataAccessException e) {
+                // Harmless apart from the space: reads follow the directory, the rebalancer skips these rows
+                log.warn("Conversation {} moved but its rows on shard {} were not deleted: {}",
+                        response.getConversationId(), response.getFromShard(), e.getMessage());
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Whether the lock of a switched conversation survived the directory cache lifetime. Without it a stale
+     * instance may have written to the source shard, so those rows are kept for reconciliation.
+     */
+    private boolean keepsLock(ShardMoveResponse response) {
+        if (shardService.extendMove(response.getConversationId())) {
+            return true;
+        }
+        log.error("Move lock of conversation {} was lost after switching to shard {}, its rows on shard {} are kept " +
+                        "for reconciliation", response.getConversationId(), response.getToShard(), response.getFromShard());
+        return false;
+    }
+
+    private void discardCopy(Move move) {
+        try {
+            transactionOn(move.target()).executeWithoutResult(status ->
+                    delete(new JdbcTemplate(shardDataSources.primary(move.target())), move.conversationId()));
+        } catch (DataAccessException e) {
+            // Harmless apart from the space: the directory still points at the source shard
+            log.warn("Copy of conversation {} on shard {} was not deleted: {}",
+                    move.conversationId(), move.target(), e.getMessage());
+        }
+    }
+
+    private long copy(Move move) {
+        JdbcTemplate source = new JdbcTemplate(shardDataSources.primary(move.source()));
+        source.setFetchSize(BATCH_SIZE);
+        JdbcTemplate target = new JdbcTemplate(shardDataSources.primary(move.target()));
+        String conversationId = move.conversationId().toString();
+
+        // Every table is read from the snapshot taken by the first read, a late write cannot tear the copy
+        Long copied = snapshotOn(move.source()).execute(snapshot -> transactionOn(move.target()).execute(status -> {
+            // Leftovers of an earlier interrupted move would collide with the copy
+            delete(target, move.conversationId());
+            // Chat rows reference each other in both directions (last_message_id, reply_to), so checks wait for
+            // the commit; user ids are plain columns, their foreign keys were dropped when the store was sharded
+            target.execute("SET FOREIGN_KEY_CHECKS = 0");
+            try {
+                long rows = 0;
+                for (Map.Entry<String, String> table : CONVERSATION_ROWS.entrySet()) {
+                    rows += copyRows(source, target, table.getKey(), table.getValue(), conversationId);
+                }
+                return rows;
+            } finally {
+                target.execute("SET FOREIGN_KEY_CHECKS = 1");
+            }
+        }));
+        return copied != null ? copied : 0;
+    }
+
+    private long copyRows(JdbcTemplate source, JdbcTemplate target, String table, String query, String conversationId) {
+        List<Object[]> batch = new ArrayList<>();
+        long[] copied = {0};
+        String[] insert = {null};
+
+        source.query(query, resultSet -> {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int columns = metaData.getColumnCount();
+            if (insert[0] == null) {
+                List<String> names = new ArrayList<>();
+                for (int column = 1; column <= columns; column++) {
+                    names.add("`" + metaData.getColumnName(column) + "`");
+                }
+                insert[0] = "INSERT INTO " + table + " (" + String.join(", ", names) + ") VALUES ("
+                        + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+            }
+
+            Object[] row = new Object[columns];
+            for (int column = 1; column <= columns; column++) {
+                row[column - 1] = resultSet.getObject(column);
+            }
+            batch.add(row);
+            if (batch.size() == BATCH_SIZE) {
+                copied[0] += insertBatch(target, insert[0], batch);
+            }
+        }, conversationId);
+
+        if (!batch.isEmpty()) {
+            copied[0] += insertBatch(target, insert[0], batch);
+        }
+        return copied[0];
+    }
+
+    private int insertBatch(JdbcTemplate target, String insert, List<Object[]> batch) {
+        target.batchUpdate(insert, batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    private void delete(JdbcTemplate jdbcTemplate, UUID conversationId) {
+        // Participants, messages and their statuses and reactions go with the conversation row through the
+        // chat tables' ON DELETE CASCADE; nothing references user, those foreign keys no longer exist. The archive
+        // tables have no foreign keys at all, their rows are deleted explicitly
+        jdbcTemplate.update("DELETE msa FROM message_status_archive msa JOIN message_archive ma ON ma.id = msa.message_id " +
+                "WHERE ma.conversation_id = UUID_TO_BIN(?)", conversationId.toString());
+        jdbcTemplate.update("DELETE mra FROM message_reaction_archive mra JOIN message_archive ma ON ma.id = mra.message_id " +
+                "WHERE ma.conversation_id = UUID_TO_BIN(?)", conversationId.toString());
+        jdbcTemplate.update("DELETE FROM message_archive WHERE conversation_id = UUID_TO_BIN(?)", conversationId.toString());
+        // Otherwise the cascade to message would have to SET NULL on the row being deleted
+        jdbcTemplate.update("UPDATE conversation SET last_message_id = NULL WHERE id = UUID_TO_BIN(?)", conversationId.toString());
+        jdbcTemplate.update("DELETE FROM conversation WHERE id = UUID_TO_BIN(?)", conversationId.toString());
+    }
+
+    private TransactionTemplate transactionOn(int shard) {
+        return new TransactionTemplate(new DataSourceTransactionManager(shardDataSources.primary(shard)));
+    }
+
+    private TransactionTemplate snapshotOn(int shard) {
+        TransactionTemplate template = transactionOn(shard);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerException(USER_SERVER_ERROR.toString());
+        }
+    }
+
+    private record Move(UUID conversationId, int source, int target) {
+    }
+}
@@ -0,0 +1,285 @@
+package com.eng.service.impl;
+
+import com.eng.config.ShardContext;
+import com.eng.config.ShardDataSources;
+import com.eng.service.ShardService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Places conversations on the message store shards and runs work on the right one.
+ * <p>
+ * New conversations go to the shard picked by the hash of their id and get a row in the conversation_shard
+ * directory on shard 0; conversations without a row were created before sharding and live on shard 0. The
+ * directory is cached for {@code directory-ttl-seconds}, which is also how long the rebalancer keeps writes
+ * to a moved conversation paused so no instance still routes them to the old shard. With a single shard no
+ * lookups are made at all.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ShardServiceImpl implements ShardService {
+    private static final String MOVE_KEY = "chat:shard-move:";
+
+    /**
+     * Sets the expiry of KEYS[1] to ARGV[2] milliseconds if it still holds ARGV[1].
+     */
+    private static final RedisScript<Long> EXTEND_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end " +
+                    "return 0", Long.class);
+
+    /**
+     * Deletes KEYS[1] if it still holds ARGV[1].
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end " +
+                    "return 0", Long.class);
+
+    private final ShardDataSources shardDataSources;
+    private final PlatformTransactionManager transactionManager;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Value("${custom.chat.sharding.directory-ttl-seconds:10}")
+    private long directoryTtlSeconds;
+
+    @Value("${custom.chat.sharding.fan-out-threads:8}")
+    private int fanOutThreads;
+
+    @Value("${custom.chat.sharding.locator-size:100000}")
+    private long locatorSize;
+
+    @Value("${custom.chat.sharding.move-lock-minutes:10}")
+    private long moveLockMinutes;
+
+    /**
+     * Value of the move locks this instance takes, so it never extends or releases another instance's lock.
+     */
+    private final String moveLockOwner = UUID.randomUUID().toString();
+
+    private JdbcTemplate directory;
+    private TransactionTemplate readOnlyTemplate;
+    private Cache<UUID, Integer> directoryCache;
+    private Cache<UUID, UUID> messageConversations;
+    private ExecutorService fanOutExecutor;
+
+    @PostConstruct
+    void init() {
+        directory = new JdbcTemplate(shardDataSources.primary(0));
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+        directoryCache = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofSeconds(directoryTtlSeconds))
+                .build();
+        // A message never changes conversation, so its entry only leaves the cache by size
+        messageConversations = Caffeine.newBuilder()
+                .maximumSize(locatorSize)
+                .build();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        fanOutExecutor = new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(fanOutThreads,
+                runnable -> new Thread(runnable, "chat-shard-fan-out-" + threadNumber.incrementAndGet())));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanOutExecutor.shutdown();
+    }
+
+    @Override
+    public int shardCount() {
+        return shardDataSources.count();
+    }
+
+    @Override
+    public int shardOf(UUID conversationId) {
+        if (shardCount() == 1) {
+            return 0;
+        }
+        return directoryCache.get(conversationId, this::lookup);
+    }
+
+    @Override
+    public int place(UUID conversationId) {
+        if (shardCount() == 1) {
+            // No row needed: a conversation without one lives on shard 0
+            return 0;
+        }
+        int shard = hashShard(conversationId);
+        assign(conversationId, shard);
+        return shard;
+    }
+
+    @Override
+    public void assign(UUID conversationId, int shard) {
+        // Written outside the caller's transaction, an orphan row of a rolled back conversation is harmless
+        directory.update("INSERT INTO conversation_shard (conversation_id, shard) VALUES (UUID_TO_BIN(?), ?) " +
+                "ON DUPLICATE KEY UPDATE shard = VALUES(shard)", conversationId.toString(), shard);
+        directoryCache.put(conversationId, shard);
+    }
+
+    @Override
+    public int hashShard(UUID conversationId) {
+        return Math.floorMod(conversationId.hashCode(), shardCount());
+    }
+
+    @Override
+    public <T> T onConversation(UUID conversationId, Supplier<T> work) {
+        if (shardCount() == 1 || conversationId == null) {
+            return work.get();
+        }
+        return ShardContext.call(shardOf(conversationId), work);
+    }
+
+    @Override
+    public void runOnConversation(UUID conversationId, Runnable work) {
+        onConversation(conversationId, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    @Override
+    public <T> T onMessage(UUID messageId, Supplier<T> work) {
+        if (shardCount() == 1 || messageId == null) {
+            return work.get();
+        }
+        UUID conversationId = findConversationId(messageId);
+        return conversationId != null ? onConversation(conversationId, work) : onShard(0, work);
+    }
+
+    @Override
+    public void runOnMessage(UUID messageId, Runnable work) {
+        onMessage(messageId, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    @Override
+    public <T> T onShard(int shard, Supplier<T> work) {
+        return ShardContext.call(shard, work);
+    }
+
+    @Override
+    public <T> List<T> onEveryShard(Supplier<T> work) {
+        if (shardCount() == 1) {
+            T result = ShardContext.call(0, () -> readOnlyTemplate.execute(status -> work.get()));
+            return Collections.singletonList(result);
+        }
+
+        List<Future<T>> futures = new ArrayList<>();
+        for (int shard = 0; shard < shardCount(); shard++) {
+            int target = shard;
+            futures.add(fanOutExecutor.submit(() -> ShardContext.call(target, () -> readOnlyTemplate.execute(status -> work.get()))));
+        }
+
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while querying the message store shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        }
+        return results;
+    }
+
+    @Override
+    public UUID findConversationId(UUID messageId) {
+        return messageConversations.get(messageId, this::locate);
+    }
+
+    @Override
+    public boolean isMoving(UUID conversationId) {
+        if (shardCount() == 1) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(MOVE_KEY + conversationId));
+        } catch (DataAccessException e) {
+            // Moves cannot start without Redis either, so an unreachable Redis does not block writes
+            log.warn("Shard move lock lookup failed for conversation {}: {}", conversationId, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean lockMove(UUID conversationId) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(MOVE_KEY + conversationId, moveLockOwner, Duration.ofMinutes(moveLockMinutes)));
+    }
+
+    @Override
+    public boolean extendMove(UUID conversationId) {
+        try {
+            Long extended = redisTemplate.execute(EXTEND_SCRIPT, List.of(MOVE_KEY + conversationId),
+                    moveLockOwner, Long.toString(Duration.ofMinutes(moveLockMinutes).toMillis()));
+            return extended != null && extended == 1;
+        } catch (DataAccessException e) {
+            // Without Redis the lock cannot be proven, writers may already be passing the check
+            log.warn("Shard move lock renewal failed for conversation {}: {}", conversationId, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void unlockMove(UUID conversationId) {
+        redisTemplate.execute(UNLOCK_SCRIPT, List.of(MOVE_KEY + conversationId), moveLockOwner);
+    }
+
+    private Integer lookup(UUID conversationId) {
+        List<Integer> shards = directory.queryForList(
+                "SELECT shard FROM conversation_shard WHERE conversation_id = UUID_TO_BIN(?)",
+                Integer.class, conversationId.toString());
+        return shards.isEmpty() ? 0 : shards.get(0);
+    }
+
+    private UUID locate(UUID messageId) {
+        for (int shard = 0; shard < shardCount(); shard++) {
+            // The primary sees a message as soon as its send committed, a replica may not yet
+            List<String> conversationIds = new JdbcTemplate(shardDataSources.primary(shard)).queryForList(
+                    "SELECT BIN_TO_UUID(conversation_id) FROM message WHERE id = UUID_TO_BIN(?) " +
+                            "UNION ALL SELECT BIN_TO_UUID(conversation_id) FROM message_archive WHERE id = UUID_TO_BIN(?)",
+                    String.class, messageId.toString(), messageId.toString());
+            if (!conversationIds.isEmpty()) {
+                return UUID.fromString(conversationIds.get(0));
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,97 @@
+package com.eng.service.impl;
+
+import com.eng.models.response.MessageStatusBatchResponse;
+import com.eng.models.response.MessageStatusEventResponse;
+import com.eng.service.OutboxService;
+import com.eng.service.StatusEventService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.eng.service.impl.StatusOutboxCoalescer.CONVERSATION_TOPIC;
+import static com.eng.service.impl.StatusOutboxCoalescer.STATUS_DESTINATION;
+
+/**
+ * Coalesces delivery, read and reaction events per conversation.
+ * <p>
+ * Each event is stored in chat_outbox with the transaction that made the change, so it keeps the outbox's
+ * at-least-once delivery, but it does not wake the relay on commit. A flush on its own thread wakes the relay every
+ * {@code window-ms} when events were committed since the last one, and the relay merges the events of one
+ * conversation in its batch into a single {@link MessageStatusBatchResponse} through {@link StatusOutboxCoalescer}.
+ * A group opening a message thus produces one frame per window instead of one per member.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatusEventServiceImpl implements StatusEventService {
+
+    private final OutboxService outboxService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${custom.chat.status-batch.window-ms:50}")
+    private long windowMillis;
+
+    private final AtomicBoolean committed = new AtomicBoolean();
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "chat-status-batch"));
+    private Counter offeredEvents;
+
+    @PostConstruct
+    void start() {
+        offeredEvents = Counter.builder("chat.status.events")
+                .description("Delivery, read and reaction events offered for publishing")
+                .register(meterRegistry);
+        flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // A task that throws is never run again
+                log.error("Status batch flush failed: {}", e.getMessage(), e);
+            }
+        }, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flushExecutor.shutdownNow();
+    }
+
+    @Override
+    public void offer(UUID conversationId, MessageStatusEventResponse event) {
+        offeredEvents.increment();
+        // Outside a transaction the outbox sends the event straight away
+        outboxService.publishDeferred(CONVERSATION_TOPIC + conversationId + STATUS_DESTINATION, MessageStatusBatchResponse.builder()
+                .conversationId(conversationId)
+                .events(List.of(event))
+                .build());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    committed.set(true);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (committed.getAndSet(false)) {
+            outboxService.relay();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.eng.service.impl;
+
+import com.eng.models.response.MessageStatusBatchResponse;
+import com.eng.models.response.MessageStatusEventResponse;
+import com.eng.service.OutboxCoalescer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the {@link MessageStatusBatchResponse} events relayed together for a conversation status topic into one
+ * frame. Only the latest event per message, user and kind is kept: a read replaces a delivery and a newer reaction
+ * replaces an older one.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatusOutboxCoalescer implements OutboxCoalescer {
+    static final String CONVERSATION_TOPIC = "/topic/conversations/";
+    static final String STATUS_DESTINATION = "/status";
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean coalesces(String destination) {
+        return destination.startsWith(CONVERSATION_TOPIC) && destination.endsWith(STATUS_DESTINATION);
+    }
+
+    @Override
+    public String coalesce(List<String> payloads) {
+        MessageStatusBatchResponse merged = null;
+        Map<String, MessageStatusEventResponse> events = new LinkedHashMap<>();
+        for (String payload : payloads) {
+            MessageStatusBatchResponse batch = read(payload);
+            if (merged == null) {
+                merged = batch;
+            }
+            for (MessageStatusEventResponse event : batch.getEvents()) {
+                events.merge(key(event), event, (current, offered) -> supersedes(offered, current) ? offered : current);
+            }
+        }
+        merged.setEvents(new ArrayList<>(events.values()));
+        return write(merged);
+    }
+
+    private String key(MessageStatusEventResponse event) {
+        if (event.getReadUpTo() != null) {
+            return "read-up-to:" + event.getUserId();
+        }
+        String kind = event.getReaction() != null ? "reaction" : "status";
+        return kind + ":" + event.getMessageId() + ":" + event.getUserId();
+    }
+
+    private boolean supersedes(MessageStatusEventResponse offered, MessageStatusEventResponse current) {
+        if (offered.getReadUpTo() != null) {
+            // Pointers only advance, of two at the same millisecond the later published one is further
+            return !offered.getReadUpTo().before(current.getReadUpTo());
+        }
+        if (offered.getStatus() != null && current.getStatus() != null) {
+            return offered.getStatus().compareTo(current.getStatus()) >= 0;
+        }
+        return true;
+    }
+
+    private MessageStatusBatchResponse read(String payload) {
+        try {
+            return objectMapper.readValue(payload, MessageStatusBatchResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Stored status batch cannot be read", e);
+        }
+    }
+
+    private String write(MessageStatusBatchResponse batch) {
+        try {
+            return objectMapper.writeValueAsString(batch);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Status batch cannot be serialized", e);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.eng.service.impl;
+
+import com.eng.mappers.ConversationMapper;
+import com.eng.models.response.ConversationResponse;
+import com.eng.models.response.MessageResponse;
+import com.eng.models.response.MessageStatusEventResponse;
+import com.eng.models.response.ParticipantReceiptResponse;
+import com.eng.models.response.SyncResponse;
+import com.eng.repositories.ConversationParticipantRepository;
+import com.eng.repositories.ConversationRepository;
+import com.eng.repositories.MessageRepository;
+import com.eng.repositories.MessageStatusRepository;
+import com.eng.service.ShardService;
+import com.eng.service.SyncService;
+import com.eng.utils.SecurityUtil;
+import com.eng.validators.SyncValidator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Delta sync for reconnecting clients, built on the updated_at columns.
+ * <p>
+ * The token holds a keyset position, updated_at and key of the last row returned, for each stream of the user's
+ * conversations: messages, statuses, receipt pointers and conversations. A sync returns the rows after each
+ * position in that order, so the cost follows what the client missed rather than the history size, and rows sharing
+ * an updated_at second are paged through rather than skipped. A stream that fits in {@code max-changes} moves to a
+ * time trailing the current one by {@code safety-lag-ms} so rows written by transactions still in flight are picked
+ * up by the next call; clients may therefore see a change twice and keep the one with the highest
+ * {@code version}/{@code updatedAt}. A stream cut at {@code max-changes} stops at its last row and {@code hasMore} is
+ * set. Every shard is read with its own limits and each stream stops at the earliest cut of any of them.
+ * <p>
+ * Tokens holding a single time, issued before the keyset positions, start every stream at that time.
+ */
+@Service
+@RequiredArgsConstructor
+public class SyncServiceImpl implements SyncService {
+    private static final long SECOND = 1000L;
+    private static final UUID FIRST_KEY = new UUID(0, 0);
+    private static final int STREAMS = 4;
+
+    private final MessageRepository messageRepository;
+    private final MessageStatusRepository messageStatusRepository;
+    private final ConversationParticipantRepository conversationParticipantRepository;
+    private final ConversationRepository conversationRepository;
+    private final ConversationMapper conversationMapper;
+    private final SyncValidator syncValidator;
+    private final ShardService shardService;
+
+    @Value("${custom.chat.sync.max-changes:500}")
+    private int maxChanges;
+
+    @Value("${custom.chat.sync.safety-lag-ms:5000}")
+    private long safetyLagMillis;
+
+    @Override
+    @Transactional(readOnly = true)
+    public SyncResponse sync(String token) {
+        List<Position> from = decode(token);
+        Position now = Position.at(System.currentTimeMillis() - safetyLagMillis);
+
+        SyncResponse response = new SyncResponse();
+        if (from == null) {
+            // First sync only hands out a position, the client loads its pages as before
+            response.setNextToken(encode(List.of(now, now, now, now)));
+            response.setMessages(List.of());
+            response.setStatuses(List.of());
+            response.setReceipts(List.of());
+            response.setConversations(List.of());
+            return response;
+        }
+
+        UUID currentUserId = SecurityUtil.getIDUser();
+        Pageable limit = PageRequest.of(0, maxChanges);
+        Position messagesFrom = from.get(0);
+        Position statusesFrom = from.get(1);
+        Position receiptsFrom = from.get(2);
+        Position conversationsFrom = from.get(3);
+
+        // The user's conversations are spread over the shards, each one reports its changes separately
+        List<ShardChanges> shards = shardService.onEveryShard(() -> new ShardChanges(
+                changes(messageRepository.findChangedSince(currentUserId, messagesFrom.at(), messagesFrom.first(), limit),
+                        message -> new Position(message.getUpdatedAt(), message.getId(), FIRST_KEY),
+                        Function.identity()),
+                changes(messageStatusRepository.findChangedSince(currentUserId, statusesFrom.at(),
+                                statusesFrom.first(), statusesFrom.second(), limit),
+                        status -> new Position(status.getUpdatedAt(), status.getMessageId(), status.getUserId()),
+                        Function.identity()),
+                changes(conversationParticipantRepository.findChangedSince(currentUserId, receiptsFrom.at(),
+                                receiptsFrom.first(), receiptsFrom.second(), limit),
+                        receipt -> new Position(receipt.getUpdatedAt(), receipt.getConversationId(), receipt.getUserId()),
+                        Function.identity()),
+                changes(conversationRepository.findChangedSince(currentUserId, conversationsFrom.at(),
+                                conversationsFrom.first(), limit),
+                        conversation -> new Position(conversation.getUpdatedAt(), conversation.getId(), FIRST_KEY),
+                        conversationMapper::toResponse)));
+
+        List<Position> next = List.of(
+                next(messagesFrom, now, shards.stream().map(changes -> changes.messages().cut())),
+                next(statusesFrom, now, shards.stream().map(changes -> changes.statuses().cut())),
+                next(receiptsFrom, now, shards.stream().map(changes -> changes.receipts().cut())),
+                next(conversationsFrom, now, shards.stream().map(changes -> changes.conversations().cut())));
+
+        response.setNextToken(encode(next));
+        response.setHasMore(shards.stream().anyMatch(ShardChanges::cut));
+        response.setMessages(shards.stream().flatMap(changes -> changes.messages().rows().stream()).toList());
+        response.setStatuses(shards.stream().flatMap(changes -> changes.statuses().rows().stream()).toList());
+        response.setReceipts(shards.stream().flatMap(changes -> changes.receipts().rows().stream()).toList());
+        response.setConversations(shards.stream().flatMap(changes -> changes.conversations().rows().stream()).toList());
+        return response;
+    }
+
+    private static <T, R> Changes<R> changes(Slice<T> slice, Function<T, Position> position, Function<T, R> response) {
+        Position cut = slice.hasNext() ? position.apply(slice.getContent().get(slice.getNumberOfElements() - 1)) : null;
+        return new Changes<>(slice.getContent().stream().map(response).toList(), cut);
+    }
+
+    /**
+     * Earliest cut of a stream on any shard, or the trailing current time when every shard returned all its rows.
+     */
+    private static Position next(Position from, Position now, Stream<Position> cuts) {
+        return cuts.filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(now.compareTo(from) > 0 ? now : from);
+    }
+
+    private List<Position> decode(String token) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+        List<Position> positions = null;
+        try {
+            String[] streams = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(";", -1);
+            if (streams.length == 1) {
+                positions = Collections.nCopies(STREAMS, Position.at(Long.parseLong(streams[0])));
+            } else if (streams.length == STREAMS) {
+                positions = Arrays.stream(streams).map(Position::parse).toList();
+            }
+        } catch (IllegalArgumentException e) {
+            // Reported below as an invalid token
+        }
+        syncValidator.validateSyncToken(positions != null && positions.stream().allMatch(Position::valid));
+        return positions;
+    }
+
+    private String encode(List<Position> positions) {
+        String token = positions.stream().map(Position::toString).collect(Collectors.joining(";"));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Keyset position in a stream: rows updated after {@code at}, or at it with a key above (first, second).
+     * Keys compare unsigned, as the binary(16) columns do.
+     */
+    private record Position(Date at, UUID first, UUID second) implements Comparable<Position> {
+
+        /**
+         * Every row from the second of a time on, updated_at has second precision.
+         */
+        static Position at(long millis) {
+            return new Position(new Date(millis / SECOND * SECOND), FIRST_KEY, FIRST_KEY);
+        }
+
+        static Position parse(String position) {
+            String[] parts = position.split(",", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(position);
+            }
+            return new Position(new Date(Long.parseLong(parts[0])), UUID.fromString(parts[1]), UUID.fromString(parts[2]));
+        }
+
+        boolean valid() {
+            return at.getTime() >= 0;
+        }
+
+        @Override
+        public int compareTo(Position other) {
+            int compared = Long.compare(at.getTime(), other.at.getTime());
+            if (compared == 0) {
+                compared = compareUnsigned(first, other.first);
+            }
+            return compared == 0 ? compareUnsigned(second, other.second) : compared;
+        }
+
+        private static int compareUnsigned(UUID left, UUID right) {
+            int compared = Long.compareUnsigned(left.getMostSignificantBits(), right.getMostSignificantBits());
+            return compared == 0 ? Long.compareUnsigned(left.getLeastSignificantBits(), right.getLeastSignificantBits()) : compared;
+        }
+
+        @Override
+        public String toString() {
+            return at.getTime() + "," + first + "," + second;
+        }
+    }
+
+    /**
+     * Rows of one stream on one shard and the position of the last one when the shard had more.
+     */
+    private record Changes<T>(List<T> rows, Position cut) {
+    }
+
+    private record ShardChanges(Changes<MessageResponse> messages,
+                                Changes<MessageStatusEventResponse> statuses,
+                                Changes<ParticipantReceiptResponse> receipts,
+                                Changes<ConversationResponse> conversations) {
+
+        boolean cut() {
+            return messages.cut() != null || statuses.cut() != null || receipts.cut() != null || conversations.cut() != null;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.eng.service.impl;
+
+import com.eng.constants.ReceiptMode;
+import com.eng.repositories.ConversationParticipantRepository;
+import com.eng.repositories.MessageStatusRepository;
+import com.eng.service.ParticipantCacheService;
+import com.eng.service.ShardService;
+import com.eng.service.UnreadCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unread message counters per user and conversation, kept in the Redis hash {@code chat:unread:<userId>}.
+ * <p>
+ * A hash is loaded from MySQL the first time the inbox of its user is read and lives for {@code ttl-hours}.
+ * Sends increment and reads decrement or recount the fields of loaded hashes only, so a missing hash is never
+ * mistaken for a user without unread messages. Counters can drift on races between a recount and a send, on
+ * deleted messages and on Redis errors; users whose inbox was read are recounted from MySQL every
+ * {@code reconcile-interval-ms}, everyone else when their hash expires.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UnreadCounterServiceImpl implements UnreadCounterService {
+    private static final String UNREAD_KEY = "chat:unread:";
+
+    /**
+     * Marks a loaded hash, a user without unread messages still has one.
+     */
+    private static final String LOADED_FIELD = "loaded";
+
+    /**
+     * Adds ARGV[2] to field ARGV[1] of every loaded hash in KEYS, never going below zero.
+     */
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "for _, key in ipairs(KEYS) do " +
+                    "if redis.call('HEXISTS', key, '" + LOADED_FIELD + "') == 1 then " +
+                    "if redis.call('HINCRBY', key, ARGV[1], ARGV[2]) < 0 then redis.call('HSET', key, ARGV[1], 0) end " +
+                    "end " +
+                    "end " +
+                    "return 0", Long.class);
+
+    private static final RedisScript<Long> SET_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], '" + LOADED_FIELD + "') == 1 then " +
+                    "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) " +
+                    "end " +
+                    "return 0", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ParticipantCacheService participantCacheService;
+    private final MessageStatusRepository messageStatusRepository;
+    private final ConversationParticipantRepository conversationParticipantRepository;
+    private final ShardService shardService;
+
+    @Value("${custom.chat.receipt-mode:ROWS}")
+    private ReceiptMode receiptMode;
+
+    @Value("${custom.chat.unread.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${custom.chat.unread.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    private final Set<UUID> activeUsers = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void messageSent(UUID conversationId, UUID senderId) {
+        List<String> keys = participantCacheService.getParticipantIds(conversationId).stream()
+                .filter(userId -> !userId.equals(senderId))
+                .map(this::key)
+                .toList();
+        if (!keys.isEmpty()) {
+            afterCommit(() -> increment(keys, conversationId, 1));
+        }
+    }
+
+    @Override
+    public void messagesRead(UUID conversationId, UUID userId, long count) {
+        if (count > 0) {
+            afterCommit(() -> increment(List.of(key(userId)), conversationId, -count));
+        }
+    }
+
+    @Override
+    public void refresh(UUID conversationId, UUID userId) {
+        // Counted inside the transaction so the read that triggered it is already applied
+        long count = receiptMode.writesRows()
+                ? messageStatusRepository.countUnread(conversationId, userId)
+                : conversationParticipantRepository.countUnread(conversationId, userId);
+        afterCommit(() -> {
+            try {
+                redisTemplate.execute(SET_SCRIPT, List.of(key(userId)), conversationId.toString(), Long.toString(count));
+            } catch (DataAccessException e) {
+                log.warn("Unread counter update failed for user {} in conversation {}: {}", userId, conversationId, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public Map<UUID, Long> getUnreadCounts(UUID userId) {
+        activeUsers.add(userId);
+        try {
+            Map<Object, Object> fields = redisTemplate.opsForHash().entries(key(userId));
+            if (fields.containsKey(LOADED_FIELD)) {
+                return toCounts(fields);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Unread counter lookup failed for user {}: {}", userId, e.getMessage());
+        }
+
+        Map<UUID, Long> counts = count(userId);
+        store(userId, counts);
+        return counts;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${custom.chat.unread.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (activeUsers.isEmpty()) {
+            return;
+        }
+
+        List<UUID> userIds = new ArrayList<>();
+        Iterator<UUID> iterator = activeUsers.iterator();
+        while (iterator.hasNext() && userIds.size() < reconcileBatchSize) {
+            userIds.add(iterator.next());
+            iterator.remove();
+        }
+
+        for (UUID userId : userIds) {
+            try {
+                store(userId, count(userId));
+            } catch (Exception e) {
+                log.warn("Unread counter reconciliation failed for user {}: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    private Map<UUID, Long> count(UUID userId) {
+        // A user's conversations are spread over the shards, each counts its own
+        List<List<Object[]>> shards = shardService.onEveryShard(() -> receiptMode.writesRows()
+                ? messageStatusRepository.countUnreadByUserId(userId)
+                : conversationParticipantRepository.countUnreadByUserId(userId));
+
+        Map<UUID, Long> counts = new HashMap<>();
+        for (List<Object[]> rows : shards) {
+            for (Object[] row : rows) {
+                counts.merge((UUID) row[0], (Long) row[1], Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    private void store(UUID userId, Map<UUID, Long> counts) {
+        String key = key(userId);
+        Map<String, String> fields = new HashMap<>();
+        counts.forEach((conversationId, count) -> fields.put(conversationId.toString(), Long.toString(count)));
+        fields.put(LOADED_FIELD, "1");
+        try {
+            redisTemplate.delete(key);
+            redisTemplate.opsForHash().putAll(key, fields);
+            redisTemplate.expire(key, Duration.ofHours(ttlHours));
+        } catch (DataAccessException e) {
+            log.warn("Unread counter store failed for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private void increment(List<String> keys, UUID conversationId, long delta) {
+        try {
+            redisTemplate.execute(INCREMENT_SCRIPT, keys, conversationId.toString(), Long.toString(delta));
+        } catch (DataAccessException e) {
+            log.warn("Unread counter update failed for conversation {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    private Map<UUID, Long> toCounts(Map<Object, Object> fields) {
+        Map<UUID, Long> counts = new HashMap<>();
+        fields.forEach((field, value) -> {
+            long count = Long.parseLong((String) value);
+            if (!LOADED_FIELD.equals(field) && count > 0) {
+                counts.put(UUID.fromString((String) field), count);
+            }
+        });
+        return counts;
+    }
+
+    private void afterCommit(Runnable work) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            work.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                work.run();
+            }
+        });
+    }
+
+    private String key(UUID userId) {
+        return UNREAD_KEY + userId;
+    }
+}
@@ -1,8 +1,12 @@
 package com.eng.service.impl;
 
+import com.eng.constants.MessageStatusType;
 import com.eng.models.response.MessageResponse;
+import com.eng.models.response.MessageStatusEventResponse;
 import com.eng.models.response.MessageStatusResponse;
 import com.eng.models.response.MessageTypingResponse;
+import com.eng.service.OutboxService;
+import com.eng.service.StatusEventService;
 import com.eng.service.UserStatusService;
 import com.eng.service.WebSocketService;
 import lombok.RequiredArgsConstructor;
@@ -10,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
 import java.util.UUID;
 
 @Slf4j
@@ -20,6 +25,10 @@ public class WebSocketServiceImpl implements WebSocketService {
     private final SimpMessagingTemplate messagingTemplate;
 
     private final UserStatusService userStatusService;
+
+    private final OutboxService outboxService;
+
+    private final StatusEventService statusEventService;
     private static final String CONVERSATION_TOPIC = "/topic/conversations/";
     private static final String USER_TOPIC = "/topic/user/";
     private static final String TYPING_DESTINATION = "/typing";
@@ -29,34 +38,40 @@ public class WebSocketServiceImpl implements WebSocketService {
     public void sendMessage(UUID conversationId, MessageResponse message) {
         String destination = CONVERSATION_TOPIC + conversationId;
         log.info("Sending message to conversation {}: {}", conversationId, message);
-        messagingTemplate.convertAndSend(destination, message);
+        outboxService.publish(destination, message);
     }
 
     @Override
     public void notifyMessageDelivered(UUID conversationId, UUID messageId, UUID userId) {
-        String destination = CONVERSATION_TOPIC + conversationId + STATUS_DESTINATION;
-        String payload = String.format("{\"messageId\":\"%s\",\"userId\":\"%s\",\"status\":\"DELIVERED\"}",
-                messageId, userId);
-        log.info("Notifying message delivered: {}", payload);
-        messagingTemplate.convertAndSend(destination, payload);
+        MessageStatusEventResponse event = MessageStatusEventResponse.builder()
+                .messageId(messageId).userId(userId).status(MessageStatusType.DELIVERED).build();
+        log.debug("Notifying message delivered: {}", event);
+        statusEventService.offer(conversationId, event);
     }
 
     @Override
     public void notifyMessageRead(UUID conversationId, UUID messageId, UUID userId) {
-        String destination = CONVERSATION_TOPIC + conversationId + STATUS_DESTINATION;
-        String payload = String.format("{\"messageId\":\"%s\",\"userId\":\"%s\",\"status\":\"READ\"}",
-                messageId, userId);
-        log.info("Notifying message read: {}", payload);
-        messagingTemplate.convertAndSend(destination, payload);
+        MessageStatusEventResponse event = MessageStatusEventResponse.builder()
+                .messageId(messageId).userId(userId).status(MessageStatusType.READ).build();
+        log.debug("Notifying message read: {}", event);
+        statusEventService.offer(conversationId, event);
+    }
+
+    @Override
+    public void notifyConversationRead(UUID conversationId, UUID messageId, UUID userId, Date readUpTo) {
+        // One event for the whole range, clients mark their messages up to readUpTo as read
+        MessageStatusEventResponse event = MessageStatusEventResponse.builder()
+                .messageId(messageId).userId(userId).status(MessageStatusType.READ).readUpTo(readUpTo).build();
+        log.debug("Notifying conversation read: {}", event);
+        statusEventService.offer(conversationId, event);
     }
 
     @Override
     public void notifyMessageReaction(UUID conversationId, UUID messageId, UUID userId, String reaction) {
-        String destination = CONVERSATION_TOPIC + conversationId + STATUS_DESTINATION;
-        String payload = String.format("{\"messageId\":\"%s\",\"userId\":\"%s\",\"reaction\":\"%s\"}",
-                messageId, userId, reaction);
-        log.info("Notifying message reaction: {}", payload);
-        messagingTemplate.convertAndSend(destination, payload);
+        MessageStatusEventResponse event = MessageStatusEventResponse.builder()
+                .messageId(messageId).userId(userId).reaction(reaction).build();
+        log.debug("Notifying message reaction: {}", event);
+        statusEventService.offer(conversationId, event);
     }
 
     @Override
@@ -2,15 +2,21 @@ package com.eng.validators;
 
 import com.eng.constants.MessageType;
 import com.eng.entities.Message;
+import com.eng.exceptions.ConflictException;
 import com.eng.feignClient.UserServiceClient;
+import com.eng.models.request.MessageAckRequest;
 import com.eng.models.request.MessageRequest;
+import com.eng.repositories.ArchivedMessageRepository;
 import com.eng.repositories.ConversationRepository;
 import com.eng.repositories.MessageRepository;
+import com.eng.service.ShardService;
 import com.eng.utils.SecurityUtil;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.UUID;
 
 import static com.eng.constants.MessageErrors.*;
@@ -23,8 +29,12 @@ public class MessageValidator extends CommonValidator{
 
     private final MessageRepository messageRepository;
 
+    private final ArchivedMessageRepository archivedMessageRepository;
+
     private final ConversationRepository conversationRepository;
 
+    private final ShardService shardService;
+
     public void validateReplyToMessage(UUID replyTo) {
         if (replyTo != null) {
             Message replyMessage = messageRepository.findById(replyTo).orElse(null);
@@ -39,14 +49,77 @@ public class MessageValidator extends CommonValidator{
         return message;
     }
 
+    public UUID validateMessageConversation(UUID conversationId) {
+        // Null when the message locator found the message on no shard
+        checkEmpty().accept(conversationId, MESSAGE_NOT_EXISTS);
+        return conversationId;
+    }
+
+    public void validateNotArchived(boolean hot) {
+        // Receipts and reactions of an archived message were archived with it and no longer change
+        checkCondition().accept(!hot, MESSAGE_ARCHIVED);
+    }
+
+    public void validateNotMoving(UUID conversationId) {
+        // Writes pause while the rebalancer copies the conversation to another shard
+        checkCondition().accept(shardService.isMoving(conversationId), CONVERSATION_MOVING);
+    }
+
     public void validateConversationId(UUID conversationId) {
         checkEmpty().accept(conversationRepository.findById(conversationId), CONVERSATION_NOT_EXISTS);
     }
 
+    public void validateHistoryCursor(UUID before, UUID after, Integer size) {
+        checkCondition().accept(before != null && after != null, MESSAGE_CURSOR_INVALID);
+        checkCondition().accept(size == null || size <= 0, MESSAGE_CURSOR_INVALID);
+    }
+
+    public Date validateCursorMessage(UUID conversationId, UUID messageId) {
+        // The anchor of a page reaching into the archive is itself archived
+        Date createdAt = messageRepository.findCreatedAt(conversationId, messageId)
+                .or(() -> archivedMessageRepository.findCreatedAt(conversationId, messageId))
+                .orElse(null);
+        checkEmpty().accept(createdAt, MESSAGE_NOT_EXISTS);
+        return createdAt;
+    }
+
+    public void validateAck(MessageAckRequest request, int maxBatchSize) {
+        checkEmpty().accept(request, MESSAGE_ACK_INVALID);
+        checkEmpty().accept(request.getMessageIds(), MESSAGE_ACK_INVALID);
+        checkCondition().accept(request.getMessageIds().size() > maxBatchSize, MESSAGE_ACK_INVALID);
+    }
+
+    public void validateSearch(String query, Integer size) {
+        checkEmpty().accept(query, MESSAGE_SEARCH_INVALID);
+        checkCondition().accept(size == null || size <= 0, MESSAGE_SEARCH_INVALID);
+    }
+
+    public void validateExportPermit(boolean acquired) {
+        checkCondition().accept(!acquired, MESSAGE_EXPORT_BUSY);
+    }
+
+    public void validateClientMessageClaim(boolean claimed) {
+        // Another send holds the claim, the client retries and gets its message once it commits
+        if (!claimed) {
+            throw new ConflictException(MESSAGE_SEND_IN_PROGRESS);
+        }
+    }
+
     public void validateSendMessage(MessageRequest request, MultipartFile file) {
         checkEmpty().accept(request, MESSAGE_EMPTY);
-        validateConversationId(request.getConversationId());
-        checkCondition().accept(request.getType().name().equalsIgnoreCase(MessageType.AUDIO.name()) && file.isEmpty(), MESSAGE_FILE_INVALID);
+        checkEmpty().accept(request.getConversationId(), CONVERSATION_NOT_EXISTS);
+        checkCondition().accept(request.getType() == MessageType.AUDIO && (file == null || file.isEmpty()), MESSAGE_FILE_INVALID);
+    }
+
+    public void validateAttachment(MessageRequest request, MultipartFile file) {
+        validateSendMessage(request, file);
+        checkCondition().accept(file == null || file.isEmpty(), MESSAGE_FILE_INVALID);
+        checkCondition().accept(request.getType() == null || !request.getType().isAttachment(), MESSAGE_FILE_INVALID);
+    }
+
+    public void validateParticipant(Collection<UUID> participantIds, UUID userId) {
+        checkEmpty().accept(participantIds, CONVERSATION_NOT_EXISTS);
+        checkCondition().accept(!participantIds.contains(userId), USER_DENIED);
     }
 
 }
@@ -0,0 +1,35 @@
+package com.eng.validators;
+
+import com.eng.utils.SecurityUtil;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+import static com.eng.constants.MessageErrors.*;
+
+@AllArgsConstructor
+@Component
+public class ShardValidator extends CommonValidator {
+
+    public void validateAdmin() {
+        checkCondition().accept(!SecurityUtil.isAdmin(), USER_DENIED);
+    }
+
+    public void validateMove(UUID conversationId, Integer shard, int shardCount) {
+        checkEmpty().accept(conversationId, CONVERSATION_NOT_EXISTS);
+        checkCondition().accept(shard == null || shard < 0 || shard >= shardCount, SHARD_INVALID);
+    }
+
+    public void validateMoveLimit(Integer limit) {
+        checkCondition().accept(limit == null || limit <= 0, SHARD_INVALID);
+    }
+
+    public void validateRebalanceStart(boolean started) {
+        checkCondition().accept(!started, SHARD_REBALANCE_RUNNING);
+    }
+
+    public void validateMoveLock(boolean locked) {
+        checkCondition().accept(!locked, CONVERSATION_MOVING);
+    }
+}
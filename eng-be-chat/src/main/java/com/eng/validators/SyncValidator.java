@@ -0,0 +1,18 @@
+package com.eng.validators;
+
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import static com.eng.constants.MessageErrors.SYNC_TOKEN_INVALID;
+
+@AllArgsConstructor
+@Component
+public class SyncValidator extends CommonValidator {
+
+    /**
+     * Rejects a token that was not issued by the sync endpoint.
+     */
+    public void validateSyncToken(boolean decoded) {
+        checkCondition().accept(!decoded, SYNC_TOKEN_INVALID);
+    }
+}
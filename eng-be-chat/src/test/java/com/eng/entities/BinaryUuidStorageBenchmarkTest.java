@@ -0,0 +1,257 @@
+package com.eng.entities;
+
+import com.eng.support.MySqlBenchmarkDatabase;
+import com.eng.support.MySqlFunctions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Index sizes and lookup latencies of the chat tables before and after V20261018130000 moves the ids from
+ * VARCHAR(36) to BINARY(16).
+ * <p>
+ * The schema is migrated up to the version before, filled with {@code benchmark.rows} messages (1 million by
+ * default) in two-person conversations with a status row per participant, rebuilt and measured; then migrated
+ * through V20261018130000, rebuilt and measured again. Both sides are rebuilt so the comparison is not skewed by
+ * the copy the migration makes. Sizes come from mysql.innodb_index_stats; each lookup runs once to warm the buffer
+ * pool, then again timed, and is reported as mean and 99th percentile.
+ * <p>
+ * Opt-in, see {@link MySqlBenchmarkDatabase}:
+ * {@code mvn test -Dtest=BinaryUuidStorageBenchmarkTest -Dbenchmark.mysql.url=...}
+ */
+@EnabledIfSystemProperty(named = MySqlBenchmarkDatabase.URL_PROPERTY, matches = ".+")
+class BinaryUuidStorageBenchmarkTest {
+    private static final String TEXT_IDS_VERSION = "20261018120000";
+    private static final String BINARY_IDS_VERSION = "20261018130000";
+    private static final List<String> TABLES = List.of("conversation", "conversation_participant", "message", "message_status");
+    private static final int BATCH_SIZE = 1_000;
+    private static final int MESSAGES_PER_CONVERSATION = 100;
+    private static final int USERS = 1_000;
+    private static final int LOOKUPS = 10_000;
+
+    private final DataSource dataSource = MySqlBenchmarkDatabase.dataSource();
+    private final Random random = new Random(42);
+
+    @Test
+    void indexSizesAndLookupLatencies() throws SQLException {
+        long rows = MySqlBenchmarkDatabase.rows(1_000_000);
+        int conversationCount = (int) Math.max(1, rows / MESSAGES_PER_CONVERSATION);
+        List<UUID> users = ids(USERS);
+        List<UUID> conversations = ids(conversationCount);
+        List<UUID> messages = new ArrayList<>();
+
+        MySqlBenchmarkDatabase.recreate(dataSource, TEXT_IDS_VERSION);
+        try (Connection connection = dataSource.getConnection()) {
+            fill(connection, rows, users, conversations, messages);
+        }
+        List<Lookup> lookups = lookups(users, conversations, messages);
+
+        Map<String, Long> textSizes;
+        Map<String, double[]> textLatencies;
+        try (Connection connection = dataSource.getConnection()) {
+            rebuild(connection);
+            textSizes = indexSizes(connection);
+            textLatencies = latencies(connection, lookups, BinaryUuidStorageBenchmarkTest::text);
+        }
+
+        MySqlBenchmarkDatabase.migrate(dataSource, BINARY_IDS_VERSION);
+        Map<String, Long> binarySizes;
+        Map<String, double[]> binaryLatencies;
+        try (Connection connection = dataSource.getConnection()) {
+            rebuild(connection);
+            binarySizes = indexSizes(connection);
+            binaryLatencies = latencies(connection, lookups, BinaryUuidStorageBenchmarkTest::binary);
+        }
+
+        System.out.printf("%n%-55s %14s %14s%n", "index", "VARCHAR KiB", "BINARY KiB");
+        textSizes.forEach((index, size) -> System.out.printf("%-55s %14d %14d%n",
+                index, size / 1024, binarySizes.getOrDefault(index, 0L) / 1024));
+        System.out.printf("%n%-25s %20s %20s%n", "lookup", "VARCHAR mean/p99 us", "BINARY mean/p99 us");
+        textLatencies.forEach((name, latency) -> System.out.printf("%-25s %9.0f / %8.0f %9.0f / %8.0f%n",
+                name, latency[0], latency[1], binaryLatencies.get(name)[0], binaryLatencies.get(name)[1]));
+
+        long textTotal = textSizes.values().stream().mapToLong(Long::longValue).sum();
+        long binaryTotal = binarySizes.values().stream().mapToLong(Long::longValue).sum();
+        assertThat(binaryTotal).isLessThan(textTotal);
+    }
+
+    private void fill(Connection connection, long rows, List<UUID> users, List<UUID> conversations, List<UUID> messages)
+            throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+        }
+        connection.setAutoCommit(false);
+
+        insert(connection, "INSERT INTO conversation (id, is_group, created_by) VALUES (?, FALSE, ?)", conversations.size(),
+                (insert, row) -> {
+                    insert.setString(1, conversations.get((int) row).toString());
+                    insert.setString(2, participant(users, row, 0).toString());
+                });
+        insert(connection, "INSERT INTO conversation_participant (conversation_id, user_id) VALUES (?, ?)",
+                conversations.size() * 2L, (insert, row) -> {
+                    insert.setString(1, conversations.get((int) (row / 2)).toString());
+                    insert.setString(2, participant(users, row / 2, (int) (row % 2)).toString());
+                });
+
+        long start = System.currentTimeMillis() - rows * 1000;
+        insert(connection, "INSERT INTO message (id, conversation_id, sender_id, content, type, created_at) " +
+                "VALUES (?, ?, ?, ?, 'TEXT', ?)", rows, (insert, row) -> {
+            UUID id = TimeOrderedUuidGenerator.next();
+            messages.add(id);
+            long conversation = row % conversations.size();
+            insert.setString(1, id.toString());
+            insert.setString(2, conversations.get((int) conversation).toString());
+            insert.setString(3, participant(users, conversation, (int) (row % 2)).toString());
+            insert.setString(4, "Benchmark message " + row);
+            insert.setTimestamp(5, new Timestamp(start + row * 1000));
+        });
+        insert(connection, "INSERT INTO message_status (message_id, user_id, status) VALUES (?, ?, 'READ')",
+                rows * 2, (insert, row) -> {
+                    long message = row / 2;
+                    insert.setString(1, messages.get((int) message).toString());
+                    insert.setString(2, participant(users, message % conversations.size(), (int) (row % 2)).toString());
+                });
+    }
+
+    private static void insert(Connection connection, String sql, long rows, RowBinder binder) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            for (long row = 0; row < rows; row++) {
+                binder.bind(insert, row);
+                insert.addBatch();
+                if ((row + 1) % BATCH_SIZE == 0 || row + 1 == rows) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+    }
+
+    private static void rebuild(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : TABLES) {
+                // OPTIMIZE reports its result as rows, which have to be read before the next statement
+                statement.executeQuery("OPTIMIZE TABLE " + table).close();
+                statement.executeQuery("ANALYZE TABLE " + table).close();
+            }
+        }
+    }
+
+    private static Map<String, Long> indexSizes(Connection connection) throws SQLException {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT table_name, index_name, stat_value * @@innodb_page_size FROM mysql.innodb_index_stats " +
+                        "WHERE database_name = DATABASE() AND stat_name = 'size' AND table_name IN (?, ?, ?, ?) " +
+                        "ORDER BY table_name, index_name")) {
+            for (int i = 0; i < TABLES.size(); i++) {
+                query.setString(i + 1, TABLES.get(i));
+            }
+            try (ResultSet resultSet = query.executeQuery()) {
+                while (resultSet.next()) {
+                    sizes.put(resultSet.getString(1) + "." + resultSet.getString(2), resultSet.getLong(3));
+                }
+            }
+        }
+        return sizes;
+    }
+
+    private List<Lookup> lookups(List<UUID> users, List<UUID> conversations, List<UUID> messages) {
+        return List.of(
+                new Lookup("message by id", "SELECT id, content FROM message WHERE id = ?", sample(messages)),
+                new Lookup("history page", "SELECT id, content, created_at FROM message WHERE conversation_id = ? " +
+                        "ORDER BY created_at DESC LIMIT 50", sample(conversations)),
+                new Lookup("participants", "SELECT user_id FROM conversation_participant WHERE conversation_id = ?",
+                        sample(conversations)),
+                new Lookup("statuses of a user", "SELECT COUNT(*) FROM message_status WHERE user_id = ?", sample(users)));
+    }
+
+    /**
+     * Mean and 99th percentile in microseconds of each lookup, after one untimed pass.
+     */
+    private static Map<String, double[]> latencies(Connection connection, List<Lookup> lookups, IdBinder binder)
+            throws SQLException {
+        Map<String, double[]> latencies = new LinkedHashMap<>();
+        for (Lookup lookup : lookups) {
+            try (PreparedStatement query = connection.prepareStatement(lookup.sql())) {
+                run(query, lookup.ids(), binder);
+                long[] nanos = run(query, lookup.ids(), binder);
+                Arrays.sort(nanos);
+                latencies.put(lookup.name(), new double[]{
+                        Arrays.stream(nanos).average().orElse(0) / 1_000,
+                        nanos[(int) (nanos.length * 0.99)] / 1_000.0});
+            }
+        }
+        return latencies;
+    }
+
+    private static long[] run(PreparedStatement query, List<UUID> ids, IdBinder binder) throws SQLException {
+        long[] nanos = new long[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            long start = System.nanoTime();
+            binder.bind(query, ids.get(i));
+            try (ResultSet resultSet = query.executeQuery()) {
+                while (resultSet.next()) {
+                    // Rows are read to the end, as the application does
+                }
+            }
+            nanos[i] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    private static void text(PreparedStatement query, UUID id) throws SQLException {
+        query.setString(1, id.toString());
+    }
+
+    private static void binary(PreparedStatement query, UUID id) throws SQLException {
+        query.setBytes(1, MySqlFunctions.uuidToBin(id.toString()));
+    }
+
+    private static UUID participant(List<UUID> users, long conversation, int seat) {
+        return users.get((int) ((conversation * 2 + seat) % users.size()));
+    }
+
+    private List<UUID> sample(List<UUID> ids) {
+        List<UUID> sample = new ArrayList<>(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            sample.add(ids.get(random.nextInt(ids.size())));
+        }
+        return sample;
+    }
+
+    private static List<UUID> ids(int count) {
+        List<UUID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        return ids;
+    }
+
+    @FunctionalInterface
+    private interface RowBinder {
+        void bind(PreparedStatement statement, long row) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface IdBinder {
+        void bind(PreparedStatement statement, UUID id) throws SQLException;
+    }
+
+    private record Lookup(String name, String sql, List<UUID> ids) {
+    }
+}
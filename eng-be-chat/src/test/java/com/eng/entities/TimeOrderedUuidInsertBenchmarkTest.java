@@ -0,0 +1,108 @@
+package com.eng.entities;
+
+import com.eng.support.MySqlBenchmarkDatabase;
+import com.eng.support.MySqlFunctions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Insert throughput of random (v4) against time-ordered (v7) message ids on InnoDB.
+ * <p>
+ * Each id kind gets a freshly migrated schema and {@code benchmark.rows} messages, 10 million by default, inserted
+ * in batches into the real message table; the rate of every million rows is printed side by side. Random ids land
+ * anywhere in the clustered index, so once it outgrows the buffer pool most inserts read and split a page, while
+ * time-ordered ids append to the last one and keep their rate. Foreign key checks are off so only the message
+ * indexes are measured.
+ * <p>
+ * Opt-in, see {@link MySqlBenchmarkDatabase}:
+ * {@code mvn test -Dtest=TimeOrderedUuidInsertBenchmarkTest -Dbenchmark.mysql.url=...}
+ */
+@EnabledIfSystemProperty(named = MySqlBenchmarkDatabase.URL_PROPERTY, matches = ".+")
+class TimeOrderedUuidInsertBenchmarkTest {
+    private static final int BATCH_SIZE = 1_000;
+    private static final long SEGMENT_ROWS = 1_000_000;
+    private static final int CONVERSATIONS = 10_000;
+    private static final int SENDERS = 1_000;
+
+    private final DataSource dataSource = MySqlBenchmarkDatabase.dataSource();
+
+    @Test
+    void insertRatesOfRandomAndTimeOrderedIds() throws SQLException {
+        long rows = MySqlBenchmarkDatabase.rows(10_000_000);
+
+        List<Double> random = insertRates(rows, UUID::randomUUID);
+        List<Double> timeOrdered = insertRates(rows, TimeOrderedUuidGenerator::next);
+
+        System.out.printf("%n%12s %14s %14s%n", "rows", "v4 rows/s", "v7 rows/s");
+        for (int segment = 0; segment < random.size(); segment++) {
+            System.out.printf("%12d %14.0f %14.0f%n", Math.min((segment + 1) * SEGMENT_ROWS, rows),
+                    random.get(segment), timeOrdered.get(segment));
+        }
+        assertThat(timeOrdered).hasSameSizeAs(random);
+    }
+
+    /**
+     * Rows per second of each million rows inserted into a fresh message table.
+     */
+    private List<Double> insertRates(long rows, Supplier<UUID> ids) throws SQLException {
+        MySqlBenchmarkDatabase.recreate(dataSource, null);
+        List<byte[]> conversations = randomIds(CONVERSATIONS);
+        List<byte[]> senders = randomIds(SENDERS);
+
+        List<Double> rates = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO message (id, conversation_id, sender_id, content, type) VALUES (?, ?, ?, ?, 'TEXT')")) {
+                long segmentStart = System.nanoTime();
+                for (long row = 1; row <= rows; row++) {
+                    insert.setBytes(1, MySqlFunctions.uuidToBin(ids.get().toString()));
+                    insert.setBytes(2, conversations.get((int) (row % CONVERSATIONS)));
+                    insert.setBytes(3, senders.get((int) (row % SENDERS)));
+                    insert.setString(4, "Benchmark message " + row);
+                    insert.addBatch();
+                    if (row % BATCH_SIZE == 0 || row == rows) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                    if (row % SEGMENT_ROWS == 0 || row == rows) {
+                        long segmentRows = row % SEGMENT_ROWS == 0 ? SEGMENT_ROWS : row % SEGMENT_ROWS;
+                        rates.add(segmentRows * 1e9 / (System.nanoTime() - segmentStart));
+                        segmentStart = System.nanoTime();
+                    }
+                }
+            }
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM message")) {
+                count.next();
+                assertThat(count.getLong(1)).isEqualTo(rows);
+            }
+        }
+        return rates;
+    }
+
+    private static List<byte[]> randomIds(int count) {
+        List<byte[]> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(MySqlFunctions.uuidToBin(UUID.randomUUID().toString()));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,43 @@
+package com.eng.repositories;
+
+import com.eng.support.JpaTestConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(JpaTestConfiguration.class)
+class ChatOutboxLeaseRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ChatOutboxLeaseRepository chatOutboxLeaseRepository;
+
+    @Test
+    void instancesThatStopRenewingDropOutOfTheLiveOwners() {
+        chatOutboxLeaseRepository.renew("a");
+        chatOutboxLeaseRepository.renew("b");
+        chatOutboxLeaseRepository.renew("a");
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE chat_outbox_lease SET renewed_at = :at WHERE owner = 'b'")
+                .setParameter("at", new Date(System.currentTimeMillis() - 60_000))
+                .executeUpdate();
+
+        assertThat(chatOutboxLeaseRepository.findLiveOwners(30)).containsExactly("a");
+        assertThat(chatOutboxLeaseRepository.deleteExpired(300)).isZero();
+        assertThat(chatOutboxLeaseRepository.deleteExpired(30)).isEqualTo(1);
+        assertThat(chatOutboxLeaseRepository.count()).isEqualTo(1);
+    }
+}
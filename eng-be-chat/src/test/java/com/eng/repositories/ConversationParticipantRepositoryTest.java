@@ -0,0 +1,120 @@
+package com.eng.repositories;
+
+import com.eng.entities.Conversation;
+import com.eng.entities.ConversationParticipant;
+import com.eng.entities.ConversationParticipantId;
+import com.eng.entities.Message;
+import com.eng.support.JpaTestConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(JpaTestConfiguration.class)
+class ConversationParticipantRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ConversationParticipantRepository conversationParticipantRepository;
+
+    private final UUID reader = UUID.randomUUID();
+    private final UUID peer = UUID.randomUUID();
+    private final Date sameInstant = new Date(1_790_000_000_123L);
+    private Conversation conversation;
+    private Message first;
+    private Message second;
+
+    @BeforeEach
+    void sendTwoMessagesInOneMillisecond() {
+        conversation = entityManager.persist(Conversation.builder().isGroup(false).build());
+        entityManager.persist(participant(reader));
+        entityManager.persist(participant(peer));
+        send();
+        send();
+        entityManager.flush();
+
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Message m SET m.createdAt = :at WHERE m.conversation.id = :conversationId")
+                .setParameter("at", sameInstant)
+                .setParameter("conversationId", conversation.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        // History order within the millisecond is the id order of the database
+        List<Message> messages = entityManager.getEntityManager()
+                .createQuery("SELECT m FROM Message m WHERE m.conversation.id = :conversationId ORDER BY m.createdAt, m.id", Message.class)
+                .setParameter("conversationId", conversation.getId())
+                .getResultList();
+        first = messages.get(0);
+        second = messages.get(1);
+    }
+
+    @Test
+    void readPointerStopsAtItsMessageWithinTheSameMillisecond() {
+        assertThat(conversationParticipantRepository.advanceReadUpTo(conversation.getId(), reader, sameInstant, first.getId())).isEqualTo(1);
+
+        assertThat(conversationParticipantRepository.countUnread(conversation.getId(), reader)).isEqualTo(1);
+        assertThat(conversationParticipantRepository.findUserIdsReadUpTo(conversation.getId(), sameInstant, first.getId())).containsExactly(reader);
+        assertThat(conversationParticipantRepository.findUserIdsReadUpTo(conversation.getId(), sameInstant, second.getId())).isEmpty();
+        assertThat(conversationParticipantRepository.findUserIdsDeliveredUpTo(conversation.getId(), sameInstant, first.getId())).containsExactly(reader);
+        assertThat(conversationParticipantRepository.findUserIdsDeliveredUpTo(conversation.getId(), sameInstant, second.getId())).isEmpty();
+    }
+
+    @Test
+    void pointerAdvancesToALaterMessageOfTheSameMillisecondOnly() {
+        assertThat(conversationParticipantRepository.advanceReadUpTo(conversation.getId(), reader, sameInstant, second.getId())).isEqualTo(1);
+        assertThat(conversationParticipantRepository.advanceReadUpTo(conversation.getId(), reader, sameInstant, first.getId())).isZero();
+        assertThat(conversationParticipantRepository.advanceDeliveredUpTo(conversation.getId(), reader, sameInstant, first.getId())).isZero();
+        entityManager.clear();
+
+        ConversationParticipant participant = entityManager.find(ConversationParticipant.class,
+                new ConversationParticipantId(conversation.getId(), reader));
+        assertThat(participant.getReadUpToId()).isEqualTo(second.getId());
+        assertThat(participant.getDeliveredUpToId()).isEqualTo(second.getId());
+        assertThat(conversationParticipantRepository.countUnread(conversation.getId(), reader)).isZero();
+    }
+
+    @Test
+    void pointerWithoutIdCoversItsWholeMillisecond() {
+        entityManager.getEntityManager()
+                .createQuery("UPDATE ConversationParticipant p SET p.readUpTo = :at WHERE p.userId = :userId")
+                .setParameter("at", sameInstant)
+                .setParameter("userId", reader)
+                .executeUpdate();
+
+        assertThat(conversationParticipantRepository.countUnread(conversation.getId(), reader)).isZero();
+        assertThat(conversationParticipantRepository.findUserIdsReadUpTo(conversation.getId(), sameInstant, second.getId())).containsExactly(reader);
+        assertThat(conversationParticipantRepository.advanceReadUpTo(conversation.getId(), reader, sameInstant, second.getId())).isZero();
+    }
+
+    private void send() {
+        entityManager.persist(Message.builder()
+                .conversation(conversation)
+                .senderId(peer)
+                .content("hello")
+                .build());
+    }
+
+    private ConversationParticipant participant(UUID userId) {
+        return ConversationParticipant.builder()
+                .conversationId(conversation.getId())
+                .userId(userId)
+                .conversation(conversation)
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.eng.repositories;
+
+import com.eng.entities.Conversation;
+import com.eng.support.JpaTestConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(JpaTestConfiguration.class)
+class ConversationRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Test
+    void lastMessageOnlyMovesForwardWithinTheSameMillisecond() {
+        UUID conversationId = entityManager.persist(Conversation.builder().isGroup(false).build()).getId();
+        Instant at = Instant.ofEpochMilli(1_790_000_000_123L);
+        UUID earlier = new UUID(0x0100000000000000L, 0L);
+        UUID later = new UUID(0x0200000000000000L, 0L);
+
+        assertThat(conversationRepository.updateLastMessage(conversationId, later, at)).isEqualTo(1);
+        assertThat(conversationRepository.updateLastMessage(conversationId, earlier, at)).isZero();
+        assertThat(conversationRepository.updateLastMessage(conversationId, later, at)).isZero();
+        assertThat(conversationRepository.updateLastMessage(conversationId, earlier, at.plusMillis(1))).isEqualTo(1);
+        assertThat(conversationRepository.updateLastMessage(conversationId, later, at)).isZero();
+    }
+}
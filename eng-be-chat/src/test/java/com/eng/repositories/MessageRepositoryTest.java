@@ -0,0 +1,110 @@
+package com.eng.repositories;
+
+import com.eng.constants.AttachmentStatus;
+import com.eng.entities.Conversation;
+import com.eng.entities.ConversationParticipant;
+import com.eng.entities.Message;
+import com.eng.models.response.MessageResponse;
+import com.eng.support.JpaTestConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(JpaTestConfiguration.class)
+class MessageRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    private Conversation conversation;
+
+    @BeforeEach
+    void createConversation() {
+        conversation = entityManager.persist(Conversation.builder().isGroup(false).build());
+    }
+
+    @Test
+    void sweeperFindsOnlyPendingAttachmentsOlderThanTheTimeout() {
+        Message stale = send(AttachmentStatus.PENDING);
+        send(AttachmentStatus.READY);
+        send(null);
+        Date before = new Date(System.currentTimeMillis() + 1_000);
+        Message fresh = send(AttachmentStatus.PENDING);
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Message m SET m.createdAt = :at WHERE m.id = :id")
+                .setParameter("at", new Date(before.getTime() + 60_000))
+                .setParameter("id", fresh.getId())
+                .executeUpdate();
+
+        assertThat(messageRepository.findStalePendingAttachments(before, PageRequest.of(0, 10)))
+                .extracting(row -> row[0], row -> row[1])
+                .containsExactly(tuple(stale.getId(), conversation.getId()));
+    }
+
+    @Test
+    void failingKeepsAnAttachmentThatBecameReady() {
+        Message pending = send(AttachmentStatus.PENDING);
+        Message ready = send(AttachmentStatus.READY);
+
+        assertThat(messageRepository.failPendingAttachment(pending.getId())).isEqualTo(1);
+        assertThat(messageRepository.failPendingAttachment(ready.getId())).isZero();
+        entityManager.clear();
+
+        assertThat(entityManager.find(Message.class, pending.getId()).getAttachmentStatus()).isEqualTo(AttachmentStatus.FAILED);
+        assertThat(entityManager.find(Message.class, ready.getId()).getAttachmentStatus()).isEqualTo(AttachmentStatus.READY);
+    }
+
+    @Test
+    void syncPagesThroughMessagesSharingOneSecond() {
+        UUID userId = UUID.randomUUID();
+        entityManager.persist(ConversationParticipant.builder().conversationId(conversation.getId()).userId(userId).build());
+        Date second = new Date(System.currentTimeMillis() / 1000 * 1000);
+        for (int i = 0; i < 3; i++) {
+            send(null);
+        }
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Message m SET m.updatedAt = :at")
+                .setParameter("at", second)
+                .executeUpdate();
+
+        Slice<MessageResponse> first = messageRepository.findChangedSince(userId, second, new UUID(0, 0), PageRequest.of(0, 2));
+        MessageResponse last = first.getContent().get(1);
+        Slice<MessageResponse> rest = messageRepository.findChangedSince(userId, last.getUpdatedAt(), last.getId(), PageRequest.of(0, 2));
+
+        assertThat(first.hasNext()).isTrue();
+        assertThat(rest.hasNext()).isFalse();
+        assertThat(rest.getContent()).hasSize(1)
+                .extracting(MessageResponse::getId)
+                .doesNotContainAnyElementsOf(first.getContent().stream().map(MessageResponse::getId).toList());
+    }
+
+    private Message send(AttachmentStatus attachmentStatus) {
+        Message message = entityManager.persist(Message.builder()
+                .conversation(conversation)
+                .senderId(UUID.randomUUID())
+                .content("hello")
+                .attachmentStatus(attachmentStatus)
+                .build());
+        entityManager.flush();
+        return message;
+    }
+}
@@ -0,0 +1,115 @@
+package com.eng.repositories;
+
+import com.eng.entities.Conversation;
+import com.eng.entities.ConversationParticipant;
+import com.eng.entities.Message;
+import com.eng.support.JpaTestConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(JpaTestConfiguration.class)
+class MessageStatusRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MessageStatusRepository messageStatusRepository;
+
+    private final UUID reader = UUID.randomUUID();
+    private final UUID peer = UUID.randomUUID();
+    private Conversation conversation;
+
+    @BeforeEach
+    void createConversation() {
+        conversation = entityManager.persist(Conversation.builder().isGroup(false).build());
+        entityManager.persist(participant(reader));
+        entityManager.persist(participant(peer));
+    }
+
+    @Test
+    void markReadUpToTakesOffWhatCountUnreadCounted() {
+        send(peer, false);
+        send(reader, false);
+        send(peer, true);
+        Message last = send(peer, false);
+        send(reader, false);
+
+        long counter = unread();
+        assertThat(counter).isEqualTo(2);
+
+        counter -= messageStatusRepository.markReadUpTo(conversation.getId().toString(), reader.toString(),
+                last.getCreatedAt(), last.getId().toString());
+        entityManager.clear();
+
+        assertThat(counter).isZero().isEqualTo(unread());
+    }
+
+    @Test
+    void markReadTakesOffWhatCountUnreadCounted() {
+        Message own = send(reader, false);
+        Message deleted = send(peer, true);
+        Message other = send(peer, false);
+        send(peer, false);
+
+        long counter = unread();
+        counter -= messageStatusRepository.markRead(reader, List.of(own.getId(), deleted.getId(), other.getId()), new Date());
+        entityManager.clear();
+
+        assertThat(counter).isEqualTo(1).isEqualTo(unread());
+    }
+
+    @Test
+    void markMessageReadSkipsOwnMessages() {
+        Message own = send(reader, false);
+        send(peer, false);
+
+        long counter = unread();
+        counter -= messageStatusRepository.markMessageRead(own.getId().toString(), reader.toString());
+        entityManager.clear();
+
+        assertThat(counter).isEqualTo(1).isEqualTo(unread());
+    }
+
+    private long unread() {
+        return messageStatusRepository.countUnreadByUserId(reader).stream()
+                .filter(row -> conversation.getId().equals(row[0]))
+                .mapToLong(row -> (Long) row[1])
+                .sum();
+    }
+
+    private Message send(UUID senderId, boolean deleted) {
+        Message message = entityManager.persist(Message.builder()
+                .conversation(conversation)
+                .senderId(senderId)
+                .content("hello")
+                .deleted(deleted)
+                .build());
+        entityManager.flush();
+        messageStatusRepository.insertSentStatuses(message.getId().toString(), conversation.getId().toString());
+        return message;
+    }
+
+    private ConversationParticipant participant(UUID userId) {
+        return ConversationParticipant.builder()
+                .conversationId(conversation.getId())
+                .userId(userId)
+                .conversation(conversation)
+                .build();
+    }
+}
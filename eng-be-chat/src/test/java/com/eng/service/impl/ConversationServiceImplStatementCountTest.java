@@ -0,0 +1,151 @@
+package com.eng.service.impl;
+
+import com.eng.entities.Conversation;
+import com.eng.entities.ConversationParticipant;
+import com.eng.entities.FriendRequest;
+import com.eng.feignClient.UserServiceClient;
+import com.eng.mappers.ConversationMapper;
+import com.eng.models.request.CommonPageInfo;
+import com.eng.models.response.PageResponse;
+import com.eng.models.response.UserRelationshipResponse;
+import com.eng.models.response.UserResponse;
+import com.eng.repositories.ConversationParticipantRepository;
+import com.eng.repositories.ConversationRepository;
+import com.eng.repositories.FriendRequestRepository;
+import com.eng.service.ParticipantCacheService;
+import com.eng.service.ShardService;
+import com.eng.service.UnreadCounterService;
+import com.eng.service.UserStatusService;
+import com.eng.support.JpaTestConfiguration;
+import com.eng.validators.ConversationValidator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prepared statements of the friend conversation list, counted through Hibernate statistics.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(JpaTestConfiguration.class)
+class ConversationServiceImplStatementCountTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private ConversationParticipantRepository conversationParticipantRepository;
+
+    @Autowired
+    private FriendRequestRepository friendRequestRepository;
+
+    private final UUID currentUser = UUID.randomUUID();
+    private final UserServiceClient userServiceClient = mock(UserServiceClient.class);
+    private final List<UserResponse> friends = new ArrayList<>();
+    private ConversationServiceImpl conversationService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        ShardService shardService = mock(ShardService.class);
+        when(shardService.onEveryShard(any())).thenAnswer(invocation -> List.of(invocation.<Supplier<?>>getArgument(0).get()));
+        when(userServiceClient.getUsers(anyInt(), anyInt(), any(), any())).thenAnswer(invocation ->
+                CommonPageInfo.<UserResponse>builder().page(0).size(friends.size()).total((long) friends.size()).data(friends).build());
+
+        conversationService = new ConversationServiceImpl(conversationRepository, mock(ConversationMapper.class),
+                mock(ConversationValidator.class), userServiceClient, entityManager.getEntityManager(),
+                conversationParticipantRepository, friendRequestRepository, mock(UserStatusService.class),
+                mock(ParticipantCacheService.class), shardService, mock(UnreadCounterService.class));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .claim("id", currentUser.toString())
+                .build()));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void friendListCostStaysFlatAsConversationsGrow() {
+        addFriends(2);
+        long few = statementsToList(2);
+
+        addFriends(48);
+        long many = statementsToList(50);
+
+        // The friend requests and the conversation per peer
+        assertThat(few).isEqualTo(2);
+        assertThat(many).isEqualTo(few);
+    }
+
+    private long statementsToList(int expectedFriends) {
+        entityManager.clear();
+        statistics.clear();
+        PageResponse<UserRelationshipResponse> page = conversationService.loadFriendConversation(0, 100, null);
+        assertThat(page.getData()).hasSize(expectedFriends).allSatisfy(friend -> assertThat(friend.getConversationId()).isNotNull());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addFriends(int count) {
+        for (int i = 0; i < count; i++) {
+            UUID friendId = UUID.randomUUID();
+            entityManager.persist(FriendRequest.builder()
+                    .senderId(currentUser)
+                    .receiverId(friendId)
+                    .status(FriendRequest.FriendRequestStatus.ACCEPTED)
+                    .build());
+
+            Conversation conversation = entityManager.persist(Conversation.builder().isGroup(false).build());
+            entityManager.persist(participant(conversation, currentUser));
+            entityManager.persist(participant(conversation, friendId));
+
+            UserResponse friend = new UserResponse();
+            friend.setId(friendId);
+            friend.setUsername("friend-" + friends.size());
+            friends.add(friend);
+        }
+        entityManager.flush();
+    }
+
+    private ConversationParticipant participant(Conversation conversation, UUID userId) {
+        return ConversationParticipant.builder()
+                .conversationId(conversation.getId())
+                .userId(userId)
+                .conversation(conversation)
+                .build();
+    }
+}
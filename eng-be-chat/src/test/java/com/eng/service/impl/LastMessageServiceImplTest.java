@@ -0,0 +1,107 @@
+package com.eng.service.impl;
+
+import com.eng.entities.TimeOrderedUuidGenerator;
+import com.eng.repositories.ConversationRepository;
+import com.eng.repositories.MessageRepository;
+import com.eng.service.ShardService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LastMessageServiceImplTest {
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ShardService shardService;
+
+    @Test
+    void keepsTheLaterMessageOfTheSameMillisecondInBinaryOrder() {
+        LastMessageServiceImpl lastMessageService = lastMessageService();
+
+        UUID conversationId = UUID.randomUUID();
+        Date createdAt = new Date(1_790_000_000_123L);
+        // Negative as a signed long, but the larger id byte by byte
+        UUID later = new UUID(0x8000000000000000L, 0L);
+        UUID earlier = new UUID(0x7fffffffffffffffL, 0L);
+
+        lastMessageService.offer(conversationId, later, createdAt);
+        lastMessageService.offer(conversationId, earlier, createdAt);
+        lastMessageService.flush();
+
+        verify(conversationRepository).updateLastMessage(eq(conversationId), eq(later), eq(createdAt.toInstant()));
+    }
+
+    @Test
+    void holdsTheUpdateWhileTheConversationIsMoving() {
+        LastMessageServiceImpl lastMessageService = lastMessageService();
+        UUID conversationId = UUID.randomUUID();
+        UUID messageId = UUID.randomUUID();
+        Date createdAt = new Date(1_790_000_000_123L);
+        when(shardService.isMoving(conversationId)).thenReturn(true, false);
+
+        lastMessageService.offer(conversationId, messageId, createdAt);
+        lastMessageService.flush();
+        verify(conversationRepository, never()).updateLastMessage(any(), any(), any());
+
+        lastMessageService.flush();
+        verify(conversationRepository).updateLastMessage(eq(conversationId), eq(messageId), eq(createdAt.toInstant()));
+    }
+
+    @Test
+    void recoveryOffersTheNewestRecentMessageOfEachConversation() {
+        LastMessageServiceImpl lastMessageService = lastMessageService();
+        ReflectionTestUtils.setField(lastMessageService, "recoveryWindowMinutes", 10L);
+        UUID conversationId = UUID.randomUUID();
+        Date createdAt = new Date(1_790_000_000_123L);
+        UUID older = TimeOrderedUuidGenerator.firstOf(createdAt.getTime() - 1);
+        UUID newer = TimeOrderedUuidGenerator.firstOf(createdAt.getTime());
+        when(shardService.shardCount()).thenReturn(1);
+        when(shardService.onShard(eq(0), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        when(messageRepository.findIdRange(any(), any(), any())).thenReturn(List.of(
+                new Object[]{conversationId, older, new Date(createdAt.getTime() - 1)},
+                new Object[]{conversationId, newer, createdAt}));
+
+        lastMessageService.recover();
+        lastMessageService.flush();
+
+        verify(conversationRepository).updateLastMessage(eq(conversationId), eq(newer), eq(createdAt.toInstant()));
+    }
+
+    private LastMessageServiceImpl lastMessageService() {
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(shardService).runOnConversation(any(), any());
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        return new LastMessageServiceImpl(conversationRepository, messageRepository, transactionTemplate, shardService);
+    }
+}
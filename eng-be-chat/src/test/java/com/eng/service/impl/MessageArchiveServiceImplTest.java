@@ -0,0 +1,138 @@
+package com.eng.service.impl;
+
+import com.eng.constants.MessageStatusType;
+import com.eng.entities.ArchivedMessageStatus;
+import com.eng.entities.ArchivedMessageStatusId;
+import com.eng.entities.Conversation;
+import com.eng.entities.Message;
+import com.eng.entities.MessageReaction;
+import com.eng.entities.MessageStatus;
+import com.eng.models.response.MessageResponse;
+import com.eng.models.response.ReactionSummaryResponse;
+import com.eng.repositories.ArchivedMessageRepository;
+import com.eng.repositories.MessageReactionRepository;
+import com.eng.repositories.MessageRepository;
+import com.eng.repositories.MessageStatusRepository;
+import com.eng.service.ShardService;
+import com.eng.support.JpaTestConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * One archive pass over H2. The locking read uses MySQL's FOR UPDATE OF ... SKIP LOCKED, so it is answered with
+ * the message to archive; everything after it runs against the real tables.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(JpaTestConfiguration.class)
+class MessageArchiveServiceImplTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MessageStatusRepository messageStatusRepository;
+
+    @Autowired
+    private MessageReactionRepository messageReactionRepository;
+
+    @Autowired
+    private ArchivedMessageRepository archivedMessageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void receiptsAndReactionsSurviveArchiving() {
+        UUID reader = UUID.randomUUID();
+        Conversation conversation = entityManager.persist(Conversation.builder().isGroup(false).build());
+        Message message = entityManager.persist(Message.builder()
+                .conversation(conversation)
+                .senderId(UUID.randomUUID())
+                .content("hello")
+                .build());
+        entityManager.persist(MessageStatus.builder()
+                .message(message)
+                .userId(reader)
+                .status(MessageStatusType.READ)
+                .readAt(new Date())
+                .reaction("like")
+                .build());
+        entityManager.persist(MessageReaction.builder().messageId(message.getId()).reaction("like").count(1).build());
+        entityManager.flush();
+
+        archiveService(message).archive();
+        entityManager.clear();
+
+        assertThat(messageRepository.existsById(message.getId())).isFalse();
+        assertThat(archivedMessageRepository.existsById(message.getId())).isTrue();
+        assertThat(messageStatusRepository.count()).isZero();
+        assertThat(messageReactionRepository.count()).isZero();
+
+        ArchivedMessageStatus status = entityManager.find(ArchivedMessageStatus.class,
+                new ArchivedMessageStatusId(message.getId(), reader));
+        assertThat(status.getStatus()).isEqualTo(MessageStatusType.READ);
+        assertThat(status.getReaction()).isEqualTo("like");
+
+        ReactionSummaryServiceImpl reactionSummaryService = new ReactionSummaryServiceImpl(messageReactionRepository, messageStatusRepository);
+        ReflectionTestUtils.setField(reactionSummaryService, "cacheSize", 100L);
+        ReflectionTestUtils.setField(reactionSummaryService, "cacheTtlSeconds", 30L);
+        reactionSummaryService.buildCache();
+        List<MessageResponse> page = reactionSummaryService.withReactions(
+                List.of(MessageResponse.builder().id(message.getId()).build()), reader);
+        assertThat(page.get(0).getReactions())
+                .extracting(ReactionSummaryResponse::getReaction, ReactionSummaryResponse::getCount, ReactionSummaryResponse::isReacted)
+                .containsExactly(tuple("like", 1L, true));
+    }
+
+    private MessageArchiveServiceImpl archiveService(Message message) {
+        MessageRepository archivable = mock(MessageRepository.class, delegatesTo(messageRepository));
+        doReturn(List.<Object[]>of(new Object[]{bytes(message.getId()), message.getConversation().getId().toString()}))
+                .when(archivable).lockArchivable(any(), any(), anyInt());
+        ShardService shardService = mock(ShardService.class);
+        when(shardService.shardCount()).thenReturn(1);
+        when(shardService.onShard(eq(0), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
+        MessageArchiveServiceImpl archiveService = new MessageArchiveServiceImpl(archivable, messageStatusRepository,
+                messageReactionRepository, archivedMessageRepository, entityManager.getEntityManager(), transactionManager,
+                new SimpleMeterRegistry(), shardService);
+        ReflectionTestUtils.setField(archiveService, "enabled", true);
+        ReflectionTestUtils.setField(archiveService, "batchSize", 500);
+        ReflectionTestUtils.setField(archiveService, "maxBatches", 1);
+        ReflectionTestUtils.setField(archiveService, "countTtlSeconds", 300L);
+        archiveService.init();
+        return archiveService;
+    }
+
+    private byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}
@@ -0,0 +1,143 @@
+package com.eng.service.impl;
+
+import com.eng.entities.Conversation;
+import com.eng.entities.ConversationParticipant;
+import com.eng.entities.Message;
+import com.eng.mappers.MessageMapper;
+import com.eng.mappers.MessageMapperImpl;
+import com.eng.models.response.MessageResponse;
+import com.eng.repositories.MessageRepository;
+import com.eng.support.JpaTestConfiguration;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * History page read through the MessageResponse projection against the entity path it replaced: load the Message
+ * entities, which pull in their eager conversation, and map them with {@link MessageMapper}.
+ * <p>
+ * Each path reads the latest page of a conversation {@code benchmark.iterations} times (2000 by default) after as
+ * many untimed warm-up reads, with the persistence context cleared before every read as a request would start. The
+ * mean time, statements and entity loads per page are printed; the statement and entity counts are asserted, the
+ * time is only reported since H2 in memory leaves out the network and buffer pool.
+ * <p>
+ * Opt-in: {@code mvn test -Dtest=MessageHistoryProjectionBenchmarkTest -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(JpaTestConfiguration.class)
+class MessageHistoryProjectionBenchmarkTest {
+    private static final int MESSAGES = 5_000;
+    private static final int MEMBERS = 20;
+    private static final int PAGE_SIZE = 50;
+    private static final String LATEST_PAGE = "FROM Message m WHERE m.conversation.id = :conversationId AND m.deleted = false " +
+            "ORDER BY m.createdAt DESC, m.id DESC";
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final MessageMapper messageMapper = new MessageMapperImpl();
+    private Statistics statistics;
+    private Conversation conversation;
+
+    @BeforeEach
+    void createConversation() {
+        conversation = entityManager.persist(Conversation.builder().isGroup(true).build());
+        for (int i = 0; i < MEMBERS; i++) {
+            entityManager.persist(ConversationParticipant.builder()
+                    .conversationId(conversation.getId())
+                    .userId(UUID.randomUUID())
+                    .build());
+        }
+        for (int i = 0; i < MESSAGES; i++) {
+            entityManager.persist(Message.builder()
+                    .conversation(conversation)
+                    .senderId(UUID.randomUUID())
+                    .content("Benchmark message " + i)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void projectionReadsAPageWithoutEntities() {
+        int iterations = Integer.getInteger("benchmark.iterations", 2_000);
+
+        Result entity = measure(iterations, this::readEntities);
+        Result projection = measure(iterations, this::readProjection);
+
+        System.out.printf("%n%-12s %12s %12s %14s%n", "path", "us/page", "statements", "entity loads");
+        System.out.printf("%-12s %12.1f %12.1f %14.1f%n", "entity", entity.micros(), entity.statements(), entity.entityLoads());
+        System.out.printf("%-12s %12.1f %12.1f %14.1f%n", "projection", projection.micros(), projection.statements(), projection.entityLoads());
+
+        assertThat(projection.entityLoads()).isZero();
+        assertThat(projection.statements()).isLessThanOrEqualTo(entity.statements());
+    }
+
+    /**
+     * The select of {@link MessageRepository#findLatest}, issued like the entity query so the repository proxy and
+     * its Slice look-ahead row are not part of the comparison.
+     */
+    private List<MessageResponse> readProjection() {
+        return entityManager.getEntityManager()
+                .createQuery(MessageRepository.MESSAGE_RESPONSE + LATEST_PAGE, MessageResponse.class)
+                .setParameter("conversationId", conversation.getId())
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+    }
+
+    private List<MessageResponse> readEntities() {
+        return entityManager.getEntityManager()
+                .createQuery("SELECT m " + LATEST_PAGE, Message.class)
+                .setParameter("conversationId", conversation.getId())
+                .setMaxResults(PAGE_SIZE)
+                .getResultList()
+                .stream()
+                .map(messageMapper::toResponse)
+                .toList();
+    }
+
+    private Result measure(int iterations, Supplier<List<MessageResponse>> read) {
+        for (int i = 0; i < iterations; i++) {
+            entityManager.clear();
+            assertThat(read.get()).hasSize(PAGE_SIZE);
+        }
+
+        statistics.clear();
+        long nanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            entityManager.clear();
+            long start = System.nanoTime();
+            read.get();
+            nanos += System.nanoTime() - start;
+        }
+        return new Result(nanos / 1_000.0 / iterations,
+                (double) statistics.getPrepareStatementCount() / iterations,
+                (double) statistics.getEntityLoadCount() / iterations);
+    }
+
+    private record Result(double micros, double statements, double entityLoads) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.eng.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MessageIdempotencyServiceImplTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private MessageIdempotencyServiceImpl service;
+
+    private final UUID senderId = UUID.randomUUID();
+    private final UUID clientMessageId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        service = new MessageIdempotencyServiceImpl(redisTemplate);
+        ReflectionTestUtils.setField(service, "pendingTtlSeconds", 30L);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void claimExpiresAfterThePendingTtl() {
+        when(valueOperations.setIfAbsent(anyString(), eq("PENDING"), eq(Duration.ofSeconds(30)))).thenReturn(true);
+
+        assertThat(service.claim(senderId, clientMessageId)).isTrue();
+        verify(valueOperations).setIfAbsent(anyString(), eq("PENDING"), eq(Duration.ofSeconds(30)));
+    }
+
+    @Test
+    void pendingClaimIsNotAStoredMessage() {
+        when(valueOperations.get(anyString())).thenReturn("PENDING");
+
+        assertThat(service.findMessageId(senderId, clientMessageId)).isEmpty();
+    }
+}
@@ -0,0 +1,258 @@
+package com.eng.service.impl;
+
+import com.eng.constants.MessageType;
+import com.eng.constants.ReceiptMode;
+import com.eng.entities.Conversation;
+import com.eng.entities.ConversationParticipant;
+import com.eng.feignClient.UserServiceClient;
+import com.eng.mappers.MessageMapperImpl;
+import com.eng.models.request.MessageRequest;
+import com.eng.models.response.MessageResponse;
+import com.eng.repositories.ArchivedMessageRepository;
+import com.eng.repositories.ChatOutboxLeaseRepository;
+import com.eng.repositories.ChatOutboxRepository;
+import com.eng.repositories.ConversationParticipantRepository;
+import com.eng.repositories.ConversationRepository;
+import com.eng.repositories.MessageReactionRepository;
+import com.eng.repositories.MessageRepository;
+import com.eng.repositories.MessageStatusRepository;
+import com.eng.service.AttachmentService;
+import com.eng.service.ConversationService;
+import com.eng.service.LastMessageService;
+import com.eng.service.MessageArchiveService;
+import com.eng.service.MessageIdempotencyService;
+import com.eng.service.MessageSearchService;
+import com.eng.service.ReactionSummaryService;
+import com.eng.service.RecentMessageCacheService;
+import com.eng.service.ShardService;
+import com.eng.service.UnreadCounterService;
+import com.eng.service.UserStatusService;
+import com.eng.service.WebSocketService;
+import com.eng.support.JpaTestConfiguration;
+import com.eng.validators.MessageValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prepared statements of one send, receipt and reaction, counted through Hibernate statistics. The participant ids
+ * are read from the database on every call, as on a participant cache miss. Receipts and reactions store their event
+ * through the real outbox; the message locator is a cache hit.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(JpaTestConfiguration.class)
+class MessageServiceImplStatementCountTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MessageStatusRepository messageStatusRepository;
+
+    @Autowired
+    private ConversationParticipantRepository conversationParticipantRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private ArchivedMessageRepository archivedMessageRepository;
+
+    @Autowired
+    private MessageReactionRepository messageReactionRepository;
+
+    @Autowired
+    private ChatOutboxRepository chatOutboxRepository;
+
+    @Autowired
+    private ChatOutboxLeaseRepository chatOutboxLeaseRepository;
+
+    private final UUID sender = UUID.randomUUID();
+    private final UUID recipient = UUID.randomUUID();
+    private final ShardService shardService = mock(ShardService.class);
+    private final ConversationService conversationService = mock(ConversationService.class);
+    private MessageServiceImpl messageService;
+    private MessageServiceImpl receiptService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        when(shardService.onConversation(any(), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(shardService).runOnConversation(any(), any());
+        when(conversationService.getParticipantIds(any())).thenAnswer(invocation ->
+                conversationParticipantRepository.findUserIdsByConversationId(invocation.getArgument(0)));
+        when(conversationService.getConversationReference(any())).thenAnswer(invocation ->
+                conversationRepository.getReferenceById(invocation.getArgument(0)));
+
+        MessageValidator messageValidator = new MessageValidator(mock(UserServiceClient.class), messageRepository,
+                archivedMessageRepository, conversationRepository, shardService);
+        messageService = messageService(messageValidator, mock(WebSocketService.class), mock(ReactionSummaryService.class));
+
+        // Events go through the outbox insert, the relay and its lease are not started
+        OutboxServiceImpl outboxService = new OutboxServiceImpl(chatOutboxRepository, chatOutboxLeaseRepository,
+                mock(SimpMessagingTemplate.class), new ObjectMapper(), new TransactionTemplate(transactionManager),
+                new SimpleMeterRegistry(), shardService, List.of());
+        StatusEventServiceImpl statusEventService = new StatusEventServiceImpl(outboxService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(statusEventService, "offeredEvents", Counter.builder("chat.status.events").register(new SimpleMeterRegistry()));
+        ReactionSummaryServiceImpl reactionSummaryService = new ReactionSummaryServiceImpl(messageReactionRepository, messageStatusRepository);
+        reactionSummaryService.buildCache();
+        receiptService = messageService(messageValidator, new WebSocketServiceImpl(mock(SimpMessagingTemplate.class),
+                mock(UserStatusService.class), outboxService, statusEventService), reactionSummaryService);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        authenticate(sender);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void sendCostStaysFlatAsTheGroupGrows() {
+        long small = statementsToSend(conversation(2));
+        long large = statementsToSend(conversation(200));
+
+        assertThat(large).isEqualTo(small);
+        assertThat(messageStatusRepository.count()).isEqualTo(2 + 200);
+    }
+
+    @Test
+    void textSendCostsThreeStatements() {
+        // Participant ids, the message insert and the status fan-out; last_message_at is written by the batched flush
+        assertThat(statementsToSend(conversation(20))).isEqualTo(3);
+    }
+
+    @Test
+    void receiptCostsThreeStatements() {
+        UUID messageId = sentToRecipient();
+
+        // Participant ids, the conditional status update and the outbox event
+        assertThat(statementsFor(() -> receiptService.markMessageAsDelivered(messageId))).isEqualTo(3);
+        assertThat(statementsFor(() -> receiptService.markMessageAsRead(messageId))).isEqualTo(3);
+        // A repeated receipt changes nothing, the existence check replaces the event
+        assertThat(statementsFor(() -> receiptService.markMessageAsRead(messageId))).isEqualTo(3);
+    }
+
+    @Test
+    void reactionCostsFiveToSixStatements() {
+        UUID messageId = sentToRecipient();
+
+        // Participant ids, the locked read of the previous reaction, the conditional update, the count and the outbox event
+        assertThat(statementsFor(() -> receiptService.addReaction(messageId, "like"))).isEqualTo(5);
+        // Moving to another reaction takes one count off the previous one as well
+        assertThat(statementsFor(() -> receiptService.addReaction(messageId, "love"))).isEqualTo(6);
+        // The same reaction again stops after the update that matched no row
+        assertThat(statementsFor(() -> receiptService.addReaction(messageId, "love"))).isEqualTo(3);
+        assertThat(chatOutboxRepository.count()).isEqualTo(2);
+    }
+
+    private long statementsToSend(Conversation conversation) {
+        return statementsFor(() -> send(conversation));
+    }
+
+    private long statementsFor(Runnable work) {
+        entityManager.clear();
+        statistics.clear();
+        work.run();
+        entityManager.flush();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private MessageResponse send(Conversation conversation) {
+        MessageRequest request = new MessageRequest();
+        request.setConversationId(conversation.getId());
+        request.setContent("hello");
+        request.setType(MessageType.TEXT);
+        return messageService.sendMessage(request, null);
+    }
+
+    private UUID sentToRecipient() {
+        Conversation conversation = conversation(1);
+        entityManager.persist(participant(conversation, recipient));
+        UUID messageId = send(conversation).getId();
+        when(shardService.findConversationId(messageId)).thenReturn(conversation.getId());
+        authenticate(recipient);
+        return messageId;
+    }
+
+    private MessageServiceImpl messageService(MessageValidator messageValidator, WebSocketService webSocketService,
+                                              ReactionSummaryService reactionSummaryService) {
+        MessageServiceImpl service = new MessageServiceImpl(messageRepository, messageStatusRepository, conversationService,
+                messageValidator, new MessageMapperImpl(), webSocketService, conversationParticipantRepository,
+                mock(MessageIdempotencyService.class), mock(LastMessageService.class), mock(AttachmentService.class),
+                mock(RecentMessageCacheService.class), mock(MessageSearchService.class), mock(MessageArchiveService.class),
+                shardService, mock(UnreadCounterService.class), reactionSummaryService,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(service, "receiptMode", ReceiptMode.ROWS);
+        return service;
+    }
+
+    private void authenticate(UUID userId) {
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .claim("id", userId.toString())
+                .build()));
+    }
+
+    private Conversation conversation(int members) {
+        Conversation conversation = entityManager.persist(Conversation.builder().isGroup(members > 2).build());
+        entityManager.persist(participant(conversation, sender));
+        for (int i = 1; i < members; i++) {
+            entityManager.persist(participant(conversation, UUID.randomUUID()));
+        }
+        entityManager.flush();
+        return conversation;
+    }
+
+    private ConversationParticipant participant(Conversation conversation, UUID userId) {
+        return ConversationParticipant.builder()
+                .conversationId(conversation.getId())
+                .userId(userId)
+                .conversation(conversation)
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.eng.service.impl;
+
+import com.eng.constants.MessageStatusType;
+import com.eng.models.response.MessageStatusBatchResponse;
+import com.eng.models.response.MessageStatusEventResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatusOutboxCoalescerTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StatusOutboxCoalescer coalescer = new StatusOutboxCoalescer(objectMapper);
+
+    private final UUID conversationId = UUID.randomUUID();
+    private final UUID messageId = UUID.randomUUID();
+
+    @Test
+    void handlesConversationStatusTopicsOnly() {
+        assertThat(coalescer.coalesces("/topic/conversations/" + conversationId + "/status")).isTrue();
+        assertThat(coalescer.coalesces("/topic/conversations/" + conversationId)).isFalse();
+        assertThat(coalescer.coalesces("/topic/conversations/" + conversationId + "/typing")).isFalse();
+    }
+
+    @Test
+    void keepsTheLatestEventPerMessageUserAndKind() throws Exception {
+        UUID reader = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+
+        String merged = coalescer.coalesce(List.of(
+                batch(status(reader, MessageStatusType.DELIVERED)),
+                batch(status(other, MessageStatusType.READ)),
+                batch(status(reader, MessageStatusType.READ)),
+                batch(readUpTo(reader, 2_000)),
+                batch(readUpTo(reader, 1_000))));
+
+        MessageStatusBatchResponse batch = objectMapper.readValue(merged, MessageStatusBatchResponse.class);
+        assertThat(batch.getType()).isEqualTo(MessageStatusBatchResponse.TYPE);
+        assertThat(batch.getConversationId()).isEqualTo(conversationId);
+        assertThat(batch.getEvents()).containsExactly(
+                status(reader, MessageStatusType.READ),
+                status(other, MessageStatusType.READ),
+                readUpTo(reader, 2_000));
+    }
+
+    private String batch(MessageStatusEventResponse event) throws Exception {
+        return objectMapper.writeValueAsString(MessageStatusBatchResponse.builder()
+                .conversationId(conversationId)
+                .events(List.of(event))
+                .build());
+    }
+
+    private MessageStatusEventResponse status(UUID userId, MessageStatusType status) {
+        return MessageStatusEventResponse.builder().messageId(messageId).userId(userId).status(status).build();
+    }
+
+    private MessageStatusEventResponse readUpTo(UUID userId, long at) {
+        return MessageStatusEventResponse.builder()
+                .messageId(messageId).userId(userId).status(MessageStatusType.READ).readUpTo(new Date(at)).build();
+    }
+}
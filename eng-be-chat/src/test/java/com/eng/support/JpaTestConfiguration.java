@@ -0,0 +1,24 @@
+package com.eng.support;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Repository test setup on the in-memory H2 database of the {@code test} profile.
+ */
+@TestConfiguration
+public class JpaTestConfiguration {
+
+    @Bean
+    InitializingBean mySqlFunctions(DataSource dataSource) {
+        return () -> {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS UUID_TO_BIN FOR \"" + MySqlFunctions.class.getName() + ".uuidToBin\"");
+            jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS BIN_TO_UUID FOR \"" + MySqlFunctions.class.getName() + ".binToUuid\"");
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.eng.support;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Scratch MySQL schema for the opt-in benchmarks, which need InnoDB rather than H2 to show what they measure.
+ * <p>
+ * A benchmark runs when {@code benchmark.mysql.url} names a MySQL 8 schema, e.g.
+ * {@code -Dbenchmark.mysql.url="jdbc:mysql://localhost:3306/chat_bench?user=root&password=mysql&rewriteBatchedStatements=true"}.
+ * The schema is cleaned and rebuilt with the application's Flyway scripts, so it must not hold anything worth
+ * keeping. {@code -Dbenchmark.rows} overrides the number of rows a benchmark writes.
+ */
+public final class MySqlBenchmarkDatabase {
+    public static final String URL_PROPERTY = "benchmark.mysql.url";
+
+    private MySqlBenchmarkDatabase() {
+    }
+
+    public static DataSource dataSource() {
+        return new DriverManagerDataSource(System.getProperty(URL_PROPERTY));
+    }
+
+    public static long rows(long defaultRows) {
+        return Long.getLong("benchmark.rows", defaultRows);
+    }
+
+    /**
+     * Drops everything in the schema and migrates it up to a version, the latest one when null.
+     */
+    public static void recreate(DataSource dataSource, String target) {
+        Flyway flyway = flyway(dataSource, target);
+        flyway.clean();
+        flyway.migrate();
+    }
+
+    /**
+     * Migrates the schema on from where {@link #recreate} left it.
+     */
+    public static void migrate(DataSource dataSource, String target) {
+        flyway(dataSource, target).migrate();
+    }
+
+    private static Flyway flyway(DataSource dataSource, String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .cleanDisabled(false)
+                .target(target != null ? target : "latest")
+                .load();
+    }
+}
@@ -0,0 +1,32 @@
+package com.eng.support;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * MySQL functions used by native queries, registered as H2 aliases by {@link JpaTestConfiguration}.
+ */
+public final class MySqlFunctions {
+
+    private MySqlFunctions() {
+    }
+
+    public static byte[] uuidToBin(String uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        UUID value = UUID.fromString(uuid);
+        return ByteBuffer.allocate(16)
+                .putLong(value.getMostSignificantBits())
+                .putLong(value.getLeastSignificantBits())
+                .array();
+    }
+
+    public static String binToUuid(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+}
@@ -64,12 +64,21 @@ public interface PathApi {
 
     String CONVERSATION_GROUP = "/group";
 
+    String CONVERSATION_INBOX = "/inbox";
+
     String CONVERSATION_SOCKET_TYPING = "/{conversationId}/typing";
 
     String CONVERSATION_SOCKET_STATUS_ONLINE = "/{userId}/status/online";
 
     String CONVERSATION_SOCKET_STATUS_OFFLINE = "/{userId}/status/offline";
 
+    /**
+     * STOMP destinations acknowledging batches of messages of a conversation
+     */
+    String CONVERSATION_SOCKET_DELIVERED = "/{conversationId}/delivered";
+
+    String CONVERSATION_SOCKET_READ = "/{conversationId}/read";
+
     // Message Management Endpoints
     /**
      * Base path for all message-related operations
@@ -80,8 +89,39 @@ public interface PathApi {
 
     String MESSAGE_READ = "/read";
 
+    /**
+     * Marks every message of a conversation up to a given one as read
+     */
+    String MESSAGE_READ_UP_TO = "/read-up-to";
+
     String MESSAGE_REACTION = "/reaction";
 
+    String MESSAGE_RECEIPTS = "/receipts";
+
+    String MESSAGE_ATTACHMENT = "/attachment";
+
+    String MESSAGE_HISTORY = "/history";
+
+    String MESSAGE_SEARCH = "/search";
+
+    String MESSAGE_EXPORT = "/export";
+
+    // Sync Endpoints
+    /**
+     * Changes since a client-held sync token, used by clients catching up after a reconnect
+     */
+    String SYNC = "/sync";
+
+    // Shard Administration Endpoints
+    /**
+     * Moves conversations between message store shards, admin only
+     */
+    String SHARD = "/shards";
+
+    String SHARD_MOVE = "/move";
+
+    String SHARD_REBALANCE = "/rebalance";
+
     // Friend Management Endpoints
     /**
      * Base path for all friend-related operations
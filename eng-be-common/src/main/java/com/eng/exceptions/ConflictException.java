@@ -0,0 +1,18 @@
+package com.eng.exceptions;
+
+import com.eng.constants.MessageErrors;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception class representing a Conflict (HTTP 409).
+ * This exception is thrown when the request competes with another one still in progress and can be retried.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(MessageErrors exception) {
+        super(exception.toString());
+    }
+
+}
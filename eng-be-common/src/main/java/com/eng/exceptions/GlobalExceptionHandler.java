@@ -85,6 +85,18 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return commonHandlerException(ex.getLocalizedMessage(), "Not Found", HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handles ConflictException (HTTP 409).
+     *
+     * @param ex The ConflictException thrown.
+     * @return A structured error response.
+     */
+    @ExceptionHandler(ConflictException.class)
+    @ResponseBody
+    public final ResponseEntity<Object> handleConflictException(ConflictException ex) {
+        return commonHandlerException(ex.getLocalizedMessage(), "Conflict", HttpStatus.CONFLICT);
+    }
+
     /**
      * Handles UnauthorizedRequestException (HTTP 401).
      *
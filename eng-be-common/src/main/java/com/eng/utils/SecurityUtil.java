@@ -10,6 +10,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.util.ObjectUtils;
 
+import java.security.Principal;
 import java.util.List;
 import java.util.UUID;
 
@@ -39,6 +40,19 @@ public class SecurityUtil {
         return UUID.fromString(id);
     }
 
+    /**
+     * User id of a STOMP session; frames after CONNECT carry the session user but no security context.
+     */
+    public UUID getIDUser(Principal principal) {
+        if (principal instanceof JwtAuthenticationToken jwtAuthToken) {
+            Object value = jwtAuthToken.getTokenAttributes().get("id");
+            if (!ObjectUtils.isEmpty(value)) {
+                return UUID.fromString(value.toString());
+            }
+        }
+        throw new UnauthorizedRequestException(MessageErrors.UNAUTHORIZED);
+    }
+
     public String getUserName() {
         String username = getValueByKey("user");
         if (username == null) {
@@ -0,0 +1,17 @@
+ALTER TABLE `conversation_participant`
+ADD COLUMN `delivered_up_to` TIMESTAMP NULL,
+ADD COLUMN `read_up_to` TIMESTAMP NULL;
+
+-- Backfill the pointers from the existing per-message status rows
+UPDATE `conversation_participant` cp
+JOIN (
+    SELECT ms.`user_id`,
+           m.`conversation_id`,
+           MAX(CASE WHEN ms.`status` IN ('DELIVERED', 'READ') THEN m.`created_at` END) AS delivered_up_to,
+           MAX(CASE WHEN ms.`status` = 'READ' THEN m.`created_at` END) AS read_up_to
+    FROM `message_status` ms
+    JOIN `message` m ON m.`id` = ms.`message_id`
+    GROUP BY ms.`user_id`, m.`conversation_id`
+) r ON r.`user_id` = cp.`user_id` AND r.`conversation_id` = cp.`conversation_id`
+SET cp.`delivered_up_to` = r.delivered_up_to,
+    cp.`read_up_to` = r.read_up_to;
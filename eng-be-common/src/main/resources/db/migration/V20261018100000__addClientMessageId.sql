@@ -0,0 +1,3 @@
+ALTER TABLE `message`
+ADD COLUMN `client_message_id` VARCHAR(36) NULL,
+ADD UNIQUE INDEX `uk_message_sender_client_message_id` (`sender_id`, `client_message_id`);
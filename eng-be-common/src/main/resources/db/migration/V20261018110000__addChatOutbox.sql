@@ -0,0 +1,6 @@
+CREATE TABLE `chat_outbox` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    `destination` VARCHAR(255) NOT NULL,
+    `payload` TEXT NOT NULL,
+    `created_at` TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
@@ -0,0 +1,6 @@
+ALTER TABLE `message`
+ADD COLUMN `attachment_key` VARCHAR(512) NULL,
+ADD COLUMN `attachment_name` VARCHAR(255) NULL,
+ADD COLUMN `attachment_content_type` VARCHAR(255) NULL,
+ADD COLUMN `attachment_size` BIGINT NULL,
+ADD COLUMN `attachment_status` ENUM('PENDING', 'READY', 'FAILED') NULL;
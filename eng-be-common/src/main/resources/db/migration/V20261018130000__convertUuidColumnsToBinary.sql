@@ -0,0 +1,92 @@
+-- Store every UUID column as BINARY(16) instead of its 36 character text form.
+-- UUID_TO_BIN keeps the byte order of the UUID, so time-ordered ids stay ordered in the index.
+-- Foreign key checks are off while both sides of each constraint change type.
+SET FOREIGN_KEY_CHECKS = 0;
+
+-- Step 1: Widen to VARBINARY so the text ids can be rewritten in place
+ALTER TABLE `user`
+MODIFY COLUMN `id` VARBINARY(36) NOT NULL;
+
+ALTER TABLE `conversation`
+MODIFY COLUMN `id` VARBINARY(36) NOT NULL,
+MODIFY COLUMN `last_message_id` VARBINARY(36) NULL,
+MODIFY COLUMN `created_by` VARBINARY(36) NOT NULL;
+
+ALTER TABLE `message`
+MODIFY COLUMN `id` VARBINARY(36) NOT NULL,
+MODIFY COLUMN `conversation_id` VARBINARY(36) NOT NULL,
+MODIFY COLUMN `sender_id` VARBINARY(36) NOT NULL,
+MODIFY COLUMN `reply_to` VARBINARY(36) NULL,
+MODIFY COLUMN `client_message_id` VARBINARY(36) NULL;
+
+ALTER TABLE `conversation_participant`
+MODIFY COLUMN `conversation_id` VARBINARY(36) NOT NULL,
+MODIFY COLUMN `user_id` VARBINARY(36) NOT NULL;
+
+ALTER TABLE `message_status`
+MODIFY COLUMN `message_id` VARBINARY(36) NOT NULL,
+MODIFY COLUMN `user_id` VARBINARY(36) NOT NULL;
+
+ALTER TABLE `friend_requests`
+MODIFY COLUMN `id` VARBINARY(36) NOT NULL,
+MODIFY COLUMN `sender_id` VARBINARY(36) NOT NULL,
+MODIFY COLUMN `receiver_id` VARBINARY(36) NOT NULL;
+
+-- Step 2: Convert the text ids to their 16 byte form
+UPDATE `user` SET `id` = UUID_TO_BIN(`id`);
+
+UPDATE `conversation`
+SET `id` = UUID_TO_BIN(`id`),
+    `last_message_id` = UUID_TO_BIN(`last_message_id`),
+    `created_by` = UUID_TO_BIN(`created_by`);
+
+UPDATE `message`
+SET `id` = UUID_TO_BIN(`id`),
+    `conversation_id` = UUID_TO_BIN(`conversation_id`),
+    `sender_id` = UUID_TO_BIN(`sender_id`),
+    `reply_to` = UUID_TO_BIN(`reply_to`),
+    `client_message_id` = UUID_TO_BIN(`client_message_id`);
+
+UPDATE `conversation_participant`
+SET `conversation_id` = UUID_TO_BIN(`conversation_id`),
+    `user_id` = UUID_TO_BIN(`user_id`);
+
+UPDATE `message_status`
+SET `message_id` = UUID_TO_BIN(`message_id`),
+    `user_id` = UUID_TO_BIN(`user_id`);
+
+UPDATE `friend_requests`
+SET `id` = UUID_TO_BIN(`id`),
+    `sender_id` = UUID_TO_BIN(`sender_id`),
+    `receiver_id` = UUID_TO_BIN(`receiver_id`);
+
+-- Step 3: Narrow to the fixed 16 byte type
+ALTER TABLE `user`
+MODIFY COLUMN `id` BINARY(16) NOT NULL;
+
+ALTER TABLE `conversation`
+MODIFY COLUMN `id` BINARY(16) NOT NULL,
+MODIFY COLUMN `last_message_id` BINARY(16) NULL,
+MODIFY COLUMN `created_by` BINARY(16) NOT NULL;
+
+ALTER TABLE `message`
+MODIFY COLUMN `id` BINARY(16) NOT NULL,
+MODIFY COLUMN `conversation_id` BINARY(16) NOT NULL,
+MODIFY COLUMN `sender_id` BINARY(16) NOT NULL,
+MODIFY COLUMN `reply_to` BINARY(16) NULL,
+MODIFY COLUMN `client_message_id` BINARY(16) NULL;
+
+ALTER TABLE `conversation_participant`
+MODIFY COLUMN `conversation_id` BINARY(16) NOT NULL,
+MODIFY COLUMN `user_id` BINARY(16) NOT NULL;
+
+ALTER TABLE `message_status`
+MODIFY COLUMN `message_id` BINARY(16) NOT NULL,
+MODIFY COLUMN `user_id` BINARY(16) NOT NULL;
+
+ALTER TABLE `friend_requests`
+MODIFY COLUMN `id` BINARY(16) NOT NULL,
+MODIFY COLUMN `sender_id` BINARY(16) NOT NULL,
+MODIFY COLUMN `receiver_id` BINARY(16) NOT NULL;
+
+SET FOREIGN_KEY_CHECKS = 1;
@@ -0,0 +1,7 @@
+-- Keyset pagination of message history seeks on (conversation_id, is_deleted, created_at, id)
+ALTER TABLE `message`
+ADD INDEX `idx_message_conversation_history` (`conversation_id`, `is_deleted`, `created_at`, `id`);
+
+-- The new index starts with conversation_id and also backs the conversation foreign key
+ALTER TABLE `message`
+DROP INDEX `idx_message_conversation_id`;
@@ -0,0 +1,12 @@
+-- Delta sync reads every row changed since a client token through updated_at
+ALTER TABLE `conversation_participant`
+ADD COLUMN `updated_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP;
+
+ALTER TABLE `message`
+ADD INDEX `idx_message_conversation_updated_at` (`conversation_id`, `updated_at`);
+
+ALTER TABLE `message_status`
+ADD INDEX `idx_message_status_updated_at` (`updated_at`);
+
+ALTER TABLE `conversation`
+ADD INDEX `idx_conversation_updated_at` (`updated_at`);
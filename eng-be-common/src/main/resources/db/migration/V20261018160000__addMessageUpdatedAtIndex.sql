@@ -0,0 +1,3 @@
+-- The search index catch-up reads message changes of all conversations in updated_at order
+ALTER TABLE `message`
+ADD INDEX `idx_message_updated_at` (`updated_at`);
@@ -0,0 +1,24 @@
+-- Cold messages move out of the hot `message` table into a compressed archive with the same columns.
+-- The archive has no foreign keys: rows are only ever inserted by the archiver and read by history queries.
+CREATE TABLE `message_archive` (
+    `id` BINARY(16) NOT NULL PRIMARY KEY,
+    `conversation_id` BINARY(16) NOT NULL,
+    `sender_id` BINARY(16) NOT NULL,
+    `content` TEXT,
+    `type` ENUM('TEXT', 'IMAGE', 'VIDEO', 'FILE', 'GIF', 'AUDIO') DEFAULT 'TEXT',
+    `reply_to` BINARY(16) NULL,
+    `client_message_id` BINARY(16) NULL,
+    `attachment_key` VARCHAR(512) NULL,
+    `attachment_name` VARCHAR(255) NULL,
+    `attachment_content_type` VARCHAR(255) NULL,
+    `attachment_size` BIGINT NULL,
+    `attachment_status` ENUM('PENDING', 'READY', 'FAILED') NULL,
+    `is_deleted` BOOLEAN DEFAULT FALSE,
+    `is_edited` BOOLEAN DEFAULT FALSE,
+    `edited_at` TIMESTAMP NULL,
+    `version` BIGINT DEFAULT 0,
+    `created_at` TIMESTAMP NULL,
+    `updated_at` TIMESTAMP NULL,
+    `archived_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX `idx_message_archive_history` (`conversation_id`, `is_deleted`, `created_at`, `id`)
+) ROW_FORMAT = COMPRESSED KEY_BLOCK_SIZE = 8;
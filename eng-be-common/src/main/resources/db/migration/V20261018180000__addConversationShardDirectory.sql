@@ -0,0 +1,13 @@
+-- Placement of conversations on shards. Only the directory on shard 0 is read; a conversation without a row
+-- lives on shard 0, which is where all data was before sharding.
+CREATE TABLE `conversation_shard` (
+    `conversation_id` BINARY(16) NOT NULL PRIMARY KEY,
+    `shard` INT NOT NULL,
+    `updated_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Sharded chat tables cannot reference `user`, which only exists on shard 0
+ALTER TABLE `conversation` DROP FOREIGN KEY `conversation_ibfk_1`;
+ALTER TABLE `message` DROP FOREIGN KEY `message_ibfk_2`;
+ALTER TABLE `conversation_participant` DROP FOREIGN KEY `conversation_participant_ibfk_2`;
+ALTER TABLE `message_status` DROP FOREIGN KEY `message_status_ibfk_2`;
@@ -0,0 +1,3 @@
+-- Unread counters are reconciled from the unread statuses of a user, the status column alone is too coarse to seek on
+ALTER TABLE `message_status`
+ADD INDEX `idx_message_status_user_status` (`user_id`, `status`);
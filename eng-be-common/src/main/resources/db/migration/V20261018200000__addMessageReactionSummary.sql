@@ -0,0 +1,14 @@
+-- Reaction counts per message, kept next to the per-user reaction in message_status so a history page reads
+-- the summaries of its messages with one primary key range per message instead of every participant's status.
+CREATE TABLE `message_reaction` (
+    `message_id` BINARY(16) NOT NULL,
+    `reaction` VARCHAR(50) NOT NULL,
+    `reaction_count` INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (`message_id`, `reaction`),
+    FOREIGN KEY (`message_id`) REFERENCES `message`(`id`) ON DELETE CASCADE
+);
+
+INSERT INTO `message_reaction` (`message_id`, `reaction`, `reaction_count`)
+SELECT `message_id`, `reaction`, COUNT(*) FROM `message_status`
+WHERE `reaction` IS NOT NULL AND `reaction` <> ''
+GROUP BY `message_id`, `reaction`;
@@ -0,0 +1,14 @@
+-- Receipt pointers name the exact message they were moved to: (created_at, id) in history order.
+-- Second precision made every message of the same second read together with the pointer's message.
+ALTER TABLE `message`
+MODIFY COLUMN `created_at` TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3);
+
+ALTER TABLE `message_archive`
+MODIFY COLUMN `created_at` TIMESTAMP(3) NULL;
+
+-- A NULL id on a set pointer covers every message of its instant, as the pointers written before this change did
+ALTER TABLE `conversation_participant`
+MODIFY COLUMN `delivered_up_to` TIMESTAMP(3) NULL,
+MODIFY COLUMN `read_up_to` TIMESTAMP(3) NULL,
+ADD COLUMN `delivered_up_to_id` BINARY(16) NULL AFTER `delivered_up_to`,
+ADD COLUMN `read_up_to_id` BINARY(16) NULL AFTER `read_up_to`;
@@ -0,0 +1,4 @@
+-- The last message pointer is ordered like message history, (created_at, id) at millisecond precision,
+-- so a late flush of an older message of the same second no longer replaces a newer one.
+ALTER TABLE `conversation`
+MODIFY COLUMN `last_message_at` TIMESTAMP(3) NULL;
@@ -0,0 +1,3 @@
+-- The attachment sweeper seeks PENDING attachments by age instead of scanning the message table
+ALTER TABLE `message`
+ADD INDEX `idx_message_attachment_status` (`attachment_status`, `created_at`);
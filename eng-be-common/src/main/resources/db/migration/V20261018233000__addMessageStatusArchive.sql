@@ -0,0 +1,20 @@
+-- Receipts, reactions and reaction counts of archived messages. The archiver moves them in the transaction that
+-- moves their message, so deleting the message no longer cascades them away. Like message_archive the tables have
+-- no foreign keys; the status creation time is the message's and is not kept.
+CREATE TABLE `message_status_archive` (
+    `message_id` BINARY(16) NOT NULL,
+    `user_id` BINARY(16) NOT NULL,
+    `status` ENUM('SENT', 'DELIVERED', 'READ') DEFAULT 'SENT',
+    `read_at` TIMESTAMP NULL,
+    `delivered_at` TIMESTAMP NULL,
+    `reaction` VARCHAR(50),
+    `updated_at` TIMESTAMP NULL,
+    PRIMARY KEY (`message_id`, `user_id`)
+) ROW_FORMAT = COMPRESSED KEY_BLOCK_SIZE = 8;
+
+CREATE TABLE `message_reaction_archive` (
+    `message_id` BINARY(16) NOT NULL,
+    `reaction` VARCHAR(50) NOT NULL,
+    `reaction_count` INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (`message_id`, `reaction`)
+) ROW_FORMAT = COMPRESSED KEY_BLOCK_SIZE = 8;
@@ -0,0 +1,11 @@
+-- The STOMP broker is in-memory per instance, so an event is relayed by the instance that wrote it, to the
+-- sessions connected there. Each row records that instance; instances renew a lease on shard 0 and take over the
+-- rows of instances whose lease expired. Rows written before this migration have no owner and go to any relay.
+ALTER TABLE `chat_outbox`
+ADD COLUMN `owner` VARCHAR(64) NULL,
+ADD INDEX `idx_chat_outbox_owner` (`owner`, `id`);
+
+CREATE TABLE `chat_outbox_lease` (
+    `owner` VARCHAR(64) NOT NULL PRIMARY KEY,
+    `renewed_at` TIMESTAMP(3) NOT NULL
+);
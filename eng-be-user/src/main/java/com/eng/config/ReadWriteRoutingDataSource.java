@@ -0,0 +1,101 @@
+package com.eng.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary.
+ * <p>
+ * The route is decided when a transaction takes its first physical connection, which the surrounding
+ * LazyConnectionDataSourceProxy delays until after the read-only flag is set. A committed read-write
+ * transaction pins its user to the primary for {@code read-your-writes-ms} through the Redis key
+ * {@code user:primary-pin:<userId>}, so a profile the user just updated is visible to their next read on any
+ * instance even while the replica lags. When Redis is unavailable reads go to the primary.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+    private static final String PIN_KEY = "user:primary-pin:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration readYourWrites;
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+
+    public ReadWriteRoutingDataSource(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+                                      Duration readYourWrites) {
+        this.redisTemplate = redisTemplate;
+        this.readYourWrites = readYourWrites;
+        this.primaryRoutes = Counter.builder("user.datasource.routes")
+                .description("Connections taken per routing target")
+                .tag("target", PRIMARY)
+                .register(meterRegistry);
+        this.replicaRoutes = Counter.builder("user.datasource.routes")
+                .description("Connections taken per routing target")
+                .tag("target", REPLICA)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String userId = currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            pinAfterCommit(userId);
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+        if (userId != null && isPinned(userId)) {
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+        replicaRoutes.increment();
+        return REPLICA;
+    }
+
+    private void pinAfterCommit(String userId) {
+        if (userId == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    redisTemplate.opsForValue().set(PIN_KEY + userId, "1", readYourWrites);
+                } catch (DataAccessException e) {
+                    log.warn("Primary pin failed for user {}: {}", userId, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private boolean isPinned(String userId) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(PIN_KEY + userId));
+        } catch (DataAccessException e) {
+            log.warn("Primary pin lookup failed for user {}, reading from the primary: {}", userId, e.getMessage());
+            return true;
+        }
+    }
+
+    private String currentUserId() {
+        // Login and token endpoints have no JWT authentication and are never pinned
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof JwtAuthenticationToken jwtAuthToken) {
+            Object id = jwtAuthToken.getTokenAttributes().get("id");
+            return id != null ? id.toString() : null;
+        }
+        return null;
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
@@ -77,6 +78,7 @@ public class UserImpl implements UserService {
      */
     @Override
     // @Cacheable(value = UserCacheConfig.USER_CACHE, key = "#page + '-' + #size + '-' + #username")
+    @Transactional(readOnly = true)
     public CommonPageInfo<UserResponse> listUser(Integer page, Integer size, String username, List<UUID> userIds) {
         //Validate list user
         userValidator.validateGetList(page, size);
@@ -91,6 +93,7 @@ public class UserImpl implements UserService {
 
     @Override
     @Cacheable(value = UserCacheConfig.USER_UUID_CACHE, key = "#uuids.hashCode()")
+    @Transactional(readOnly = true)
     public List<UserResponse> getListUserByUUID(List<UUID> uuids) {
         return userRepository.findAllById(uuids).stream().map(userMapper::userToUserResponse).collect(Collectors.toList());
     }
@@ -132,6 +135,7 @@ public class UserImpl implements UserService {
      */
     @Override
     @Cacheable(value = UserCacheConfig.USER_DETAILS_CACHE, key = "#uuids.hashCode()")
+    @Transactional(readOnly = true)
     public Map<UUID, String> getListUserNames(List<UUID> uuids) {
         List<Object[]> results = userRepository.findUserIdAndUsernameByIds(uuids);
         return results.stream()